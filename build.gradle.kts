@@ -2,6 +2,7 @@ plugins {
     java
     id("com.gradleup.shadow") version "9.0.0-beta4"
     id("net.minecrell.plugin-yml.bukkit") version "0.6.0"
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "com.can61cebi"
@@ -23,6 +24,9 @@ dependencies {
     compileOnly("net.coreprotect:coreprotect:22.4")
     compileOnly("com.sk89q.worldguard:worldguard-bukkit:7.0.9")
     compileOnly("com.sk89q.worldedit:worldedit-bukkit:7.3.0")
+
+    // Benchmarks run outside the server, so they need the API at runtime
+    jmh("io.papermc.paper:paper-api:1.21.4-R0.1-SNAPSHOT")
 }
 
 java {
@@ -41,6 +45,16 @@ tasks.build {
     dependsOn(tasks.shadowJar)
 }
 
+// ./gradlew jmh - scan, leaf ownership, material lookups and drop merging on generated trees
+jmh {
+    jmhVersion.set("1.37")
+    profilers.add("gc")
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    resultFormat.set("JSON")
+}
+
 bukkit {
     name = "FoliaTimber"
     main = "com.can61cebi.foliatimber.FoliaTimber"
@@ -53,7 +67,7 @@ bukkit {
     commands {
         register("timber") {
             description = "Toggle timber feature"
-            usage = "/timber [toggle|reload]"
+            usage = "/timber [toggle|reload|cache|stats]"
             permission = "foliatimber.use"
         }
     }
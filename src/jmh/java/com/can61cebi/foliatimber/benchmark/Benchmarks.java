@@ -0,0 +1,45 @@
+package com.can61cebi.foliatimber.benchmark;
+
+import com.can61cebi.foliatimber.config.Settings;
+import com.can61cebi.foliatimber.config.SettingsSource;
+import com.can61cebi.foliatimber.metrics.TimberMetrics;
+import com.can61cebi.foliatimber.tree.TreeDetector;
+import com.can61cebi.foliatimber.tree.TreeScanCache;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.logging.Logger;
+
+/**
+ * Shared setup for the benchmarks.
+ */
+final class Benchmarks {
+
+    private Benchmarks() {}
+
+    /**
+     * Settings from the bundled config.yml, with the scan cache off so every call really scans.
+     */
+    static SettingsSource config() {
+        try (InputStream in = Benchmarks.class.getResourceAsStream("/config.yml")) {
+            if (in == null) {
+                throw new IllegalStateException("config.yml not on the benchmark classpath");
+            }
+            YamlConfiguration yaml = YamlConfiguration.loadConfiguration(new InputStreamReader(in, StandardCharsets.UTF_8));
+            yaml.set("tree-detection.scan-cache-size", 0);
+            Settings settings = Settings.from(yaml);
+            return () -> settings;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static TreeDetector detector(SettingsSource config) {
+        return new TreeDetector(config, new TreeScanCache(config), new TimberMetrics(),
+                Logger.getLogger("FoliaTimber"));
+    }
+}
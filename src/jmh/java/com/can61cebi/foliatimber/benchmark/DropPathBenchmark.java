@@ -0,0 +1,56 @@
+package com.can61cebi.foliatimber.benchmark;
+
+import com.can61cebi.foliatimber.tree.DropAggregator;
+import com.can61cebi.foliatimber.tree.TreeData;
+import org.bukkit.Material;
+import org.bukkit.block.Block;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drop handling of one felling, as TreeChopper does it per broken block:
+ * ask the block for its drops, merge them, split into stacks at the end.
+ * TreeChopper itself needs a running plugin, and blocks are not removed here
+ * so the same tree can be felled every invocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class DropPathBenchmark {
+
+    @Param({"OAK", "DARK_OAK", "JUNGLE_MEGA", "MANGROVE", "DENSE_FOREST", "TREEHOUSE"})
+    public TreeShape shape;
+
+    private Block[] blocks;
+    private ItemStack tool;
+
+    @Setup
+    public void setup() {
+        TreeShape.Fixture fixture = shape.build();
+        TreeData tree = Benchmarks.detector(Benchmarks.config()).scanTree(fixture.startBlock(), fixture.logType());
+        blocks = new Block[tree.logs().size() + tree.leaves().size()];
+        int i = 0;
+        for (Block log : tree.logs()) blocks[i++] = log;
+        for (Block leaf : tree.leaves()) blocks[i++] = leaf;
+        tool = new FakeItemStack(Material.DIAMOND_AXE, 1);
+    }
+
+    @Benchmark
+    public List<ItemStack> collectDrops() {
+        DropAggregator drops = new DropAggregator();
+        for (Block block : blocks) {
+            drops.addAll(block.getDrops(tool, null));
+        }
+        return drops.toStacks();
+    }
+}
@@ -0,0 +1,59 @@
+package com.can61cebi.foliatimber.benchmark;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * Item stack that needs no server (real stacks delegate to the server's item implementation).
+ * Overrides everything {@link com.can61cebi.foliatimber.tree.DropAggregator} uses.
+ */
+final class FakeItemStack extends ItemStack {
+
+    private final Material type;
+    private int amount;
+
+    FakeItemStack(Material type, int amount) {
+        this.type = type;
+        this.amount = amount;
+    }
+
+    @Override
+    public Material getType() {
+        return type;
+    }
+
+    @Override
+    public int getAmount() {
+        return amount;
+    }
+
+    @Override
+    public void setAmount(int amount) {
+        this.amount = amount;
+    }
+
+    @Override
+    public int getMaxStackSize() {
+        return 64;
+    }
+
+    @Override
+    public boolean isSimilar(ItemStack other) {
+        return other != null && other.getType() == type;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return type.isAir() || amount <= 0;
+    }
+
+    @Override
+    public FakeItemStack clone() {
+        return new FakeItemStack(type, amount);
+    }
+
+    @Override
+    public String toString() {
+        return "FakeItemStack[" + type + " x " + amount + "]";
+    }
+}
@@ -0,0 +1,125 @@
+package com.can61cebi.foliatimber.benchmark;
+
+import com.can61cebi.foliatimber.tree.VoxelGridBlockSource;
+import com.can61cebi.foliatimber.util.BlockKey;
+import org.bukkit.Axis;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.block.data.Orientable;
+import org.bukkit.inventory.ItemStack;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * In-memory world for benchmarks: a voxel grid centered on x/z = 0.
+ * Exposes the Bukkit World/Block surface the plugin uses through proxies,
+ * so TreeDetector and TreeData run unchanged without a server.
+ */
+public final class FakeWorld extends VoxelGridBlockSource {
+
+    private final int minY;
+    private final int height;
+
+    private final UUID uid = UUID.randomUUID();
+    private final World world;
+
+    /**
+     * Create an empty world spanning [-radius, radius) on x/z and [minY, maxY) vertically.
+     */
+    public FakeWorld(int radius, int minY, int maxY) {
+        super(-radius, minY, -radius, 2 * radius, maxY - minY, 2 * radius);
+        this.minY = minY;
+        this.height = maxY - minY;
+        this.world = (World) Proxy.newProxyInstance(World.class.getClassLoader(),
+                new Class<?>[] {World.class}, this::invokeWorld);
+    }
+
+    /**
+     * Get the Bukkit view of this world.
+     */
+    public World asWorld() {
+        return world;
+    }
+
+    public Block blockAt(int x, int y, int z) {
+        return world.getBlockAt(x, y, z);
+    }
+
+    /**
+     * Drops of a block (deterministic stand-in for loot tables).
+     */
+    private List<ItemStack> dropsOf(int x, int y, int z) {
+        Material type = getType(x, y, z);
+        if (type.isAir()) return List.of();
+        if (!type.name().endsWith("_LEAVES")) return List.of(new FakeItemStack(type, 1));
+
+        // Leaves: roughly 1 in 20 sapling, 1 in 50 two sticks
+        int roll = Math.floorMod(Long.hashCode(BlockKey.pack(x, y, z)) * 31, 100);
+        if (roll < 5) return List.of(new FakeItemStack(Material.OAK_SAPLING, 1));
+        if (roll < 7) return List.of(new FakeItemStack(Material.STICK, 2));
+        return List.of();
+    }
+
+    private Object invokeWorld(Object proxy, Method method, Object[] args) {
+        return switch (method.getName()) {
+            case "getType" -> getType((int) args[0], (int) args[1], (int) args[2]);
+            case "getBlockData" -> blockData((int) args[0], (int) args[1], (int) args[2]);
+            case "getBlockAt" -> block((int) args[0], (int) args[1], (int) args[2]);
+            case "getUID" -> uid;
+            case "getName" -> "fake";
+            case "getMinHeight" -> minY;
+            case "getMaxHeight" -> minY + height;
+            case "hashCode" -> uid.hashCode();
+            case "equals" -> proxy == args[0];
+            case "toString" -> "FakeWorld";
+            default -> throw new UnsupportedOperationException("FakeWorld." + method.getName());
+        };
+    }
+
+    /**
+     * Block data of a block; orientable only if the block was set with an axis (logs).
+     */
+    private BlockData blockData(int x, int y, int z) {
+        Material type = getType(x, y, z);
+        Axis axis = getAxis(x, y, z);
+        Class<?> kind = axis != null ? Orientable.class : BlockData.class;
+        return (BlockData) Proxy.newProxyInstance(kind.getClassLoader(),
+                new Class<?>[] {kind}, (proxy, method, args) -> switch (method.getName()) {
+                    case "getAxis" -> axis;
+                    case "getMaterial" -> type;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "FakeBlockData[" + type + "]";
+                    default -> throw new UnsupportedOperationException("FakeBlockData." + method.getName());
+                });
+    }
+
+    private Block block(int x, int y, int z) {
+        return (Block) Proxy.newProxyInstance(Block.class.getClassLoader(),
+                new Class<?>[] {Block.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "getType" -> getType(x, y, z);
+                    case "setType" -> {
+                        set(x, y, z, (Material) args[0]);
+                        yield null;
+                    }
+                    case "getX" -> x;
+                    case "getY" -> y;
+                    case "getZ" -> z;
+                    case "getWorld" -> world;
+                    case "getLocation" -> new Location(world, x, y, z);
+                    case "getBlockData" -> blockData(x, y, z);
+                    case "getDrops" -> dropsOf(x, y, z);
+                    case "hashCode" -> Long.hashCode(BlockKey.pack(x, y, z));
+                    case "equals" -> args[0] instanceof Block other && other.getWorld() == world
+                            && other.getX() == x && other.getY() == y && other.getZ() == z;
+                    case "toString" -> "FakeBlock[" + x + "," + y + "," + z + "]";
+                    default -> throw new UnsupportedOperationException("FakeBlock." + method.getName());
+                });
+    }
+}
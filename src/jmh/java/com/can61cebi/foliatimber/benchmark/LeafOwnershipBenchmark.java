@@ -0,0 +1,53 @@
+package com.can61cebi.foliatimber.benchmark;
+
+import com.can61cebi.foliatimber.config.SettingsSource;
+import com.can61cebi.foliatimber.tree.LeafOwnership;
+import com.can61cebi.foliatimber.util.LongHashSet;
+import com.can61cebi.foliatimber.util.MaterialUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Leaf ownership on its own (the part of the scan that reads the most blocks).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class LeafOwnershipBenchmark {
+
+    // Same as TreeDetector.MAX_HORIZONTAL_SPREAD
+    private static final int MAX_HORIZONTAL_SPREAD = 3;
+
+    @Param({"OAK", "DARK_OAK", "JUNGLE_MEGA", "MANGROVE", "DENSE_FOREST", "TREEHOUSE"})
+    public TreeShape shape;
+
+    private TreeShape.Fixture fixture;
+    private LongHashSet logs;
+    private int woodFamily;
+    private int radius;
+
+    @Setup
+    public void setup() {
+        fixture = shape.build();
+        SettingsSource config = Benchmarks.config();
+        logs = Benchmarks.detector(config)
+                .scan(fixture.world(), fixture.x(), fixture.y(), fixture.z(), fixture.logType())
+                .logs();
+        woodFamily = MaterialUtil.getWoodFamily(fixture.logType());
+        radius = config.getSettings().leafSearchRadius();
+    }
+
+    @Benchmark
+    public LongHashSet findLeaves() {
+        return LeafOwnership.findLeaves(fixture.world(), logs, woodFamily, radius,
+                fixture.x(), fixture.z(), MAX_HORIZONTAL_SPREAD + radius);
+    }
+}
@@ -0,0 +1,93 @@
+package com.can61cebi.foliatimber.benchmark;
+
+import com.can61cebi.foliatimber.util.MaterialUtil;
+import org.bukkit.Material;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Material classification over a mix like a scan window sees: mostly air and
+ * tree blocks, with arbitrary materials sprinkled in.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MaterialUtilBenchmark {
+
+    private static final int SAMPLES = 4096;
+
+    private static final Material[] COMMON = {
+        Material.AIR, Material.AIR, Material.AIR, Material.AIR,
+        Material.OAK_LOG, Material.OAK_LEAVES, Material.OAK_LEAVES,
+        Material.GRASS_BLOCK, Material.OAK_PLANKS, Material.JUNGLE_LEAVES
+    };
+
+    private Material[] materials;
+    private int oakFamily;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        Material[] all = Material.values();
+        materials = new Material[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            materials[i] = random.nextInt(4) == 0
+                    ? all[random.nextInt(all.length)]
+                    : COMMON[random.nextInt(COMMON.length)];
+        }
+        oakFamily = MaterialUtil.getWoodFamily(Material.OAK_LOG);
+    }
+
+    @Benchmark
+    public int isLogBlock() {
+        int count = 0;
+        for (Material material : materials) {
+            if (MaterialUtil.isLogBlock(material)) count++;
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int isLeafBlock() {
+        int count = 0;
+        for (Material material : materials) {
+            if (MaterialUtil.isLeafBlock(material)) count++;
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int isStructureBlock() {
+        int count = 0;
+        for (Material material : materials) {
+            if (MaterialUtil.isStructureBlock(material)) count++;
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int isValidLeaf() {
+        int count = 0;
+        for (Material material : materials) {
+            if (MaterialUtil.isValidLeaf(oakFamily, material)) count++;
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int getWoodFamily() {
+        int sum = 0;
+        for (Material material : materials) {
+            sum += MaterialUtil.getWoodFamily(material);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,52 @@
+package com.can61cebi.foliatimber.benchmark;
+
+import com.can61cebi.foliatimber.tree.TreeData;
+import com.can61cebi.foliatimber.tree.TreeDetector;
+import com.can61cebi.foliatimber.tree.TreeScan;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full tree detection: BFS, leaf ownership, treehouse sweep and validation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TreeDetectorBenchmark {
+
+    @Param({"OAK", "DARK_OAK", "JUNGLE_MEGA", "MANGROVE", "DENSE_FOREST", "TREEHOUSE"})
+    public TreeShape shape;
+
+    private TreeShape.Fixture fixture;
+    private TreeDetector detector;
+
+    @Setup
+    public void setup() {
+        fixture = shape.build();
+        detector = Benchmarks.detector(Benchmarks.config());
+    }
+
+    /**
+     * Live world path used on the region thread (includes building TreeData).
+     */
+    @Benchmark
+    public TreeData scanTree() {
+        return detector.scanTree(fixture.startBlock(), fixture.logType());
+    }
+
+    /**
+     * Scan only, straight on the block array (no Bukkit proxies, no Block objects).
+     */
+    @Benchmark
+    public TreeScan scan() {
+        return detector.scan(fixture.world(), fixture.x(), fixture.y(), fixture.z(), fixture.logType());
+    }
+}
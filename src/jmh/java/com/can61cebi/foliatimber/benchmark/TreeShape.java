@@ -0,0 +1,224 @@
+package com.can61cebi.foliatimber.benchmark;
+
+import org.bukkit.Axis;
+import org.bukkit.Material;
+import org.bukkit.block.Block;
+
+/**
+ * Generated tree fixtures for the benchmarks.
+ * Shapes follow vanilla growth closely enough to exercise the same code paths
+ * (2x2 trunks, branches, shared canopies, attached structures), not to be exact copies.
+ */
+public enum TreeShape {
+
+    /** Plain 5 block oak with a round canopy. */
+    OAK {
+        @Override
+        void grow(FakeWorld world) {
+            oak(world, 0, 0, 5);
+        }
+    },
+
+    /** 2x2 dark oak with diagonal branches and a wide flat canopy. */
+    DARK_OAK {
+        @Override
+        void grow(FakeWorld world) {
+            trunk(world, 0, 0, 2, 7, Material.DARK_OAK_LOG);
+            int top = GROUND + 7;
+            log(world, -1, top - 1, -1, Material.DARK_OAK_LOG, Axis.Y);
+            log(world, 2, top - 1, 2, Material.DARK_OAK_LOG, Axis.Y);
+            log(world, 2, top, -1, Material.DARK_OAK_LOG, Axis.Y);
+            for (int y = top - 2; y <= top + 1; y++) {
+                int r = y > top ? 2 : 4;
+                leafDisc(world, 0, y, 0, r, Material.DARK_OAK_LEAVES);
+                leafDisc(world, 1, y, 1, r, Material.DARK_OAK_LEAVES);
+            }
+        }
+    },
+
+    /** Mega jungle tree: tall 2x2 trunk, horizontal branches with leaf clusters. */
+    JUNGLE_MEGA {
+        @Override
+        void grow(FakeWorld world) {
+            int height = 24;
+            trunk(world, 0, 0, 2, height, Material.JUNGLE_LOG);
+            for (int y = GROUND + 8, i = 0; y < GROUND + height - 4; y += 4, i++) {
+                // Branches alternate sides and stay inside the scanner's horizontal spread
+                int dx = (i & 1) == 0 ? -1 : 1;
+                int dz = (i & 2) == 0 ? 0 : 1;
+                int bx = dx < 0 ? -1 : 2;
+                int bz = dz == 0 ? 0 : 2;
+                log(world, bx, y, bz, Material.JUNGLE_LOG, dz == 0 ? Axis.X : Axis.Z);
+                log(world, bx + dx, y + 1, bz + dz, Material.JUNGLE_LOG, dz == 0 ? Axis.X : Axis.Z);
+                leafBall(world, bx + dx, y + 2, bz + dz, 2, Material.JUNGLE_LEAVES);
+            }
+            int top = GROUND + height;
+            for (int y = top - 2; y <= top + 1; y++) {
+                int r = y > top ? 3 : 5;
+                leafDisc(world, 0, y, 0, r, Material.JUNGLE_LEAVES);
+                leafDisc(world, 1, y, 1, r, Material.JUNGLE_LEAVES);
+            }
+        }
+    },
+
+    /** Mangrove on roots: raised, bending trunk and a wide canopy. */
+    MANGROVE {
+        @Override
+        void grow(FakeWorld world) {
+            for (int dx = -2; dx <= 2; dx++) {
+                for (int dz = -2; dz <= 2; dz++) {
+                    if (Math.abs(dx) + Math.abs(dz) <= 2) {
+                        world.set(dx, GROUND, dz, Material.MANGROVE_ROOTS);
+                        if (dx == 0 || dz == 0) world.set(dx, GROUND + 1, dz, Material.MANGROVE_ROOTS);
+                    }
+                }
+            }
+            int x = 0;
+            for (int y = GROUND + 2; y < GROUND + 10; y++) {
+                if (y == GROUND + 6) x = 1;
+                log(world, x, y, 0, Material.MANGROVE_LOG, Axis.Y);
+            }
+            log(world, 2, GROUND + 8, 1, Material.MANGROVE_LOG, Axis.Y);
+            log(world, -1, GROUND + 9, -1, Material.MANGROVE_LOG, Axis.Y);
+            leafBall(world, 1, GROUND + 10, 0, 3, Material.MANGROVE_LEAVES);
+            leafBall(world, 2, GROUND + 9, 2, 2, Material.MANGROVE_LEAVES);
+            leafBall(world, -1, GROUND + 10, -1, 2, Material.MANGROVE_LEAVES);
+        }
+
+        @Override
+        int startY() {
+            return GROUND + 2;
+        }
+    },
+
+    /** 7x7 grid of oaks four blocks apart; canopies touch, leaves are contested. */
+    DENSE_FOREST {
+        @Override
+        void grow(FakeWorld world) {
+            for (int gx = -3; gx <= 3; gx++) {
+                for (int gz = -3; gz <= 3; gz++) {
+                    oak(world, gx * 4, gz * 4, 5 + Math.floorMod(gx * 7 + gz * 3, 3));
+                }
+            }
+        }
+    },
+
+    /** Oak with a plank platform, fences and a ladder (rejected by the treehouse check). */
+    TREEHOUSE {
+        @Override
+        void grow(FakeWorld world) {
+            oak(world, 0, 0, 8);
+            int floor = GROUND + 4;
+            for (int dx = -2; dx <= 2; dx++) {
+                for (int dz = -2; dz <= 2; dz++) {
+                    if (dx == 0 && dz == 0) continue;
+                    world.set(dx, floor, dz, Material.OAK_PLANKS);
+                    if (Math.abs(dx) == 2 || Math.abs(dz) == 2) {
+                        world.set(dx, floor + 1, dz, Material.OAK_FENCE);
+                    }
+                }
+            }
+            for (int y = GROUND; y < floor; y++) {
+                world.set(0, y, -1, Material.LADDER);
+            }
+        }
+    };
+
+    /** Y of the first block above the ground layer. */
+    static final int GROUND = 64;
+
+    /** Horizontal extent of the generated world (blocks from x/z = 0). */
+    private static final int WORLD_RADIUS = 40;
+
+    /**
+     * A generated world and where to start chopping.
+     */
+    public record Fixture(FakeWorld world, int x, int y, int z, Material logType) {
+        public Block startBlock() {
+            return world.blockAt(x, y, z);
+        }
+    }
+
+    /**
+     * Generate a fresh world containing this shape.
+     */
+    public Fixture build() {
+        FakeWorld world = new FakeWorld(WORLD_RADIUS, 0, 160);
+        for (int x = -WORLD_RADIUS; x < WORLD_RADIUS; x++) {
+            for (int z = -WORLD_RADIUS; z < WORLD_RADIUS; z++) {
+                world.set(x, GROUND - 1, z, Material.GRASS_BLOCK);
+            }
+        }
+        grow(world);
+        return new Fixture(world, 0, startY(), 0, logType());
+    }
+
+    abstract void grow(FakeWorld world);
+
+    int startY() {
+        return GROUND;
+    }
+
+    Material logType() {
+        return switch (this) {
+            case DARK_OAK -> Material.DARK_OAK_LOG;
+            case JUNGLE_MEGA -> Material.JUNGLE_LOG;
+            case MANGROVE -> Material.MANGROVE_LOG;
+            default -> Material.OAK_LOG;
+        };
+    }
+
+    // ========== Building blocks ==========
+
+    private static void oak(FakeWorld world, int x, int z, int height) {
+        trunk(world, x, z, 1, height, Material.OAK_LOG);
+        int top = GROUND + height;
+        leafDisc(world, x, top - 3, z, 2, Material.OAK_LEAVES);
+        leafDisc(world, x, top - 2, z, 2, Material.OAK_LEAVES);
+        leafDisc(world, x, top - 1, z, 1, Material.OAK_LEAVES);
+        leafDisc(world, x, top, z, 1, Material.OAK_LEAVES);
+    }
+
+    private static void trunk(FakeWorld world, int x, int z, int width, int height, Material type) {
+        for (int y = GROUND; y < GROUND + height; y++) {
+            for (int dx = 0; dx < width; dx++) {
+                for (int dz = 0; dz < width; dz++) {
+                    log(world, x + dx, y, z + dz, type, Axis.Y);
+                }
+            }
+        }
+    }
+
+    private static void log(FakeWorld world, int x, int y, int z, Material type, Axis axis) {
+        world.set(x, y, z, type, axis);
+    }
+
+    /**
+     * Square leaf layer without corners; never replaces logs.
+     */
+    private static void leafDisc(FakeWorld world, int cx, int y, int cz, int r, Material leaf) {
+        for (int dx = -r; dx <= r; dx++) {
+            for (int dz = -r; dz <= r; dz++) {
+                if (Math.abs(dx) == r && Math.abs(dz) == r) continue;
+                leaf(world, cx + dx, y, cz + dz, leaf);
+            }
+        }
+    }
+
+    private static void leafBall(FakeWorld world, int cx, int cy, int cz, int r, Material leaf) {
+        for (int dx = -r; dx <= r; dx++) {
+            for (int dy = -r; dy <= r; dy++) {
+                for (int dz = -r; dz <= r; dz++) {
+                    if (dx * dx + dy * dy + dz * dz > r * r + 1) continue;
+                    leaf(world, cx + dx, cy + dy, cz + dz, leaf);
+                }
+            }
+        }
+    }
+
+    private static void leaf(FakeWorld world, int x, int y, int z, Material leaf) {
+        if (world.getType(x, y, z).isAir()) {
+            world.set(x, y, z, leaf);
+        }
+    }
+}
@@ -3,11 +3,19 @@ package com.can61cebi.foliatimber;
 import com.can61cebi.foliatimber.command.TimberCommand;
 import com.can61cebi.foliatimber.config.ConfigManager;
 import com.can61cebi.foliatimber.listener.BlockBreakListener;
+import com.can61cebi.foliatimber.listener.BlockTrackingListener;
+import com.can61cebi.foliatimber.listener.RegionChangeListener;
+import com.can61cebi.foliatimber.metrics.OpenMetricsExporter;
+import com.can61cebi.foliatimber.metrics.TimberMetrics;
 import com.can61cebi.foliatimber.protection.CoreProtectHook;
+import com.can61cebi.foliatimber.protection.PlacedBlockIndex;
+import com.can61cebi.foliatimber.protection.PlacementVerdictCache;
 import com.can61cebi.foliatimber.protection.StructureProtection;
 import com.can61cebi.foliatimber.protection.WorldGuardHook;
 import com.can61cebi.foliatimber.scheduler.FoliaSchedulerWrapper;
+import com.can61cebi.foliatimber.tree.ChopScheduler;
 import com.can61cebi.foliatimber.tree.TreeDetector;
+import com.can61cebi.foliatimber.tree.TreeScanCache;
 import org.bukkit.Location;
 import org.bukkit.entity.Entity;
 import org.bukkit.plugin.java.JavaPlugin;
@@ -24,10 +32,24 @@ public class FoliaTimber extends JavaPlugin {
     private ConfigManager configManager;
     private CoreProtectHook coreProtectHook;
     private WorldGuardHook worldGuardHook;
+    private PlacedBlockIndex placedBlockIndex;
+    private PlacementVerdictCache verdictCache;
+    private ChopScheduler chopScheduler;
+    private TreeScanCache treeScanCache;
+    private TimberMetrics metrics;
+    private OpenMetricsExporter metricsExporter;
     private StructureProtection structureProtection;
     private TreeDetector treeDetector;
     private BlockBreakListener blockBreakListener;
     
+    @Override
+    public void onLoad() {
+        // Custom WorldGuard flags must be registered before WorldGuard enables
+        if (getServer().getPluginManager().getPlugin("WorldGuard") != null) {
+            WorldGuardHook.registerFlags(this);
+        }
+    }
+    
     @Override
     public void onEnable() {
         instance = this;
@@ -43,13 +65,30 @@ public class FoliaTimber extends JavaPlugin {
         this.coreProtectHook = new CoreProtectHook(this);
         this.worldGuardHook = new WorldGuardHook(this);
         
+        // Placed block index (regions load on first use), saved periodically
+        this.placedBlockIndex = new PlacedBlockIndex(this);
+        long saveTicks = Math.max(1, configManager.getPlacedBlockIndexSaveInterval()) * 20L;
+        scheduler.runAsyncTimer(placedBlockIndex::saveAll, saveTicks, saveTicks);
+        
         // Initialize services
-        this.structureProtection = new StructureProtection(this, coreProtectHook);
-        this.treeDetector = new TreeDetector(configManager);
+        this.metrics = new TimberMetrics();
+        this.verdictCache = new PlacementVerdictCache(configManager);
+        this.structureProtection = new StructureProtection(this, coreProtectHook, placedBlockIndex, verdictCache);
+        this.treeScanCache = new TreeScanCache(configManager);
+        this.treeDetector = new TreeDetector(configManager, treeScanCache, metrics, getLogger());
+        this.chopScheduler = new ChopScheduler(this);
+        
+        // Expose metrics for scraping (if enabled)
+        this.metricsExporter = new OpenMetricsExporter(this);
+        metricsExporter.start();
         
-        // Register listener
+        // Register listeners
         this.blockBreakListener = new BlockBreakListener(this);
         getServer().getPluginManager().registerEvents(blockBreakListener, this);
+        getServer().getPluginManager().registerEvents(new BlockTrackingListener(this), this);
+        if (worldGuardHook.isEnabled()) {
+            getServer().getPluginManager().registerEvents(new RegionChangeListener(worldGuardHook.getVerdictCache()), this);
+        }
         
         // Register commands
         TimberCommand timberCommand = new TimberCommand(this);
@@ -71,6 +110,18 @@ public class FoliaTimber extends JavaPlugin {
         if (scheduler != null) {
             scheduler.cancelAllTasks();
         }
+        if (chopScheduler != null) {
+            chopScheduler.shutdown();
+        }
+        if (metricsExporter != null) {
+            metricsExporter.stop();
+        }
+        if (structureProtection != null) {
+            structureProtection.shutdown();
+        }
+        if (placedBlockIndex != null) {
+            placedBlockIndex.saveAll();
+        }
         getLogger().info("FoliaTimber disabled.");
     }
     
@@ -97,7 +148,13 @@ public class FoliaTimber extends JavaPlugin {
     public ConfigManager getConfigManager() { return configManager; }
     public CoreProtectHook getCoreProtectHook() { return coreProtectHook; }
     public WorldGuardHook getWorldGuardHook() { return worldGuardHook; }
+    public PlacedBlockIndex getPlacedBlockIndex() { return placedBlockIndex; }
+    public PlacementVerdictCache getVerdictCache() { return verdictCache; }
     public StructureProtection getStructureProtection() { return structureProtection; }
     public TreeDetector getTreeDetector() { return treeDetector; }
+    public ChopScheduler getChopScheduler() { return chopScheduler; }
+    public TreeScanCache getTreeScanCache() { return treeScanCache; }
+    public TimberMetrics getMetrics() { return metrics; }
+    public OpenMetricsExporter getMetricsExporter() { return metricsExporter; }
     public BlockBreakListener getBlockBreakListener() { return blockBreakListener; }
 }
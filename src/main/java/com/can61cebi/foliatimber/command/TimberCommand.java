@@ -3,7 +3,11 @@ package com.can61cebi.foliatimber.command;
 import com.can61cebi.foliatimber.FoliaTimber;
 import com.can61cebi.foliatimber.config.ConfigManager;
 import com.can61cebi.foliatimber.listener.BlockBreakListener;
+import com.can61cebi.foliatimber.metrics.Histogram;
+import com.can61cebi.foliatimber.metrics.TimberMetrics;
+import com.can61cebi.foliatimber.protection.PlacementVerdictCache;
 import com.can61cebi.foliatimber.util.MessageUtil;
+import net.kyori.adventure.text.Component;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
@@ -14,9 +18,10 @@ import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 /**
- * Handles /timber command for toggling, reloading, and language switching.
+ * Handles /timber command for toggling, reloading, language switching, cache and timing statistics.
  */
 public class TimberCommand implements CommandExecutor, TabCompleter {
     
@@ -51,6 +56,12 @@ public class TimberCommand implements CommandExecutor, TabCompleter {
             case "debug" -> {
                 return handleDebug(sender);
             }
+            case "cache" -> {
+                return handleCache(sender, args);
+            }
+            case "stats" -> {
+                return handleStats(sender, args);
+            }
             case "help" -> {
                 return handleHelp(sender);
             }
@@ -91,6 +102,9 @@ public class TimberCommand implements CommandExecutor, TabCompleter {
         }
         
         plugin.getConfigManager().reload();
+        plugin.getTreeScanCache().clear();
+        plugin.getWorldGuardHook().getVerdictCache().clear();
+        plugin.getMetricsExporter().restart();
         sendMessage(sender, config.getPrefixedMessage("reloaded"));
         
         return true;
@@ -104,22 +118,18 @@ public class TimberCommand implements CommandExecutor, TabCompleter {
         
         if (args.length < 2) {
             // Show current language
-            String msg = config.getMessage("language-current")
-                .replace("%lang%", config.getLanguage().toUpperCase());
-            sendMessage(sender, config.getPrefix() + msg);
-            
-            String available = config.getMessage("language-available")
-                .replace("%languages%", config.getAvailableLanguages());
-            sendMessage(sender, config.getPrefix() + available);
+            sendMessage(sender, config.getPrefixedMessage("language-current",
+                "%lang%", config.getLanguage().toUpperCase()));
+            sendMessage(sender, config.getPrefixedMessage("language-available",
+                "%languages%", config.getAvailableLanguages()));
             return true;
         }
         
         String newLang = args[1].toLowerCase();
         
         if (!config.isValidLanguage(newLang)) {
-            String msg = config.getMessage("language-invalid")
-                .replace("%languages%", config.getAvailableLanguages());
-            sendMessage(sender, config.getPrefix() + msg);
+            sendMessage(sender, config.getPrefixedMessage("language-invalid",
+                "%languages%", config.getAvailableLanguages()));
             return true;
         }
         
@@ -152,17 +162,116 @@ public class TimberCommand implements CommandExecutor, TabCompleter {
         return true;
     }
     
+    private boolean handleCache(CommandSender sender, String[] args) {
+        if (!sender.hasPermission("foliatimber.reload")) {
+            sendMessage(sender, config.getPrefixedMessage("no-permission"));
+            return true;
+        }
+        
+        PlacementVerdictCache cache = plugin.getVerdictCache();
+        
+        if (args.length >= 2 && args[1].equalsIgnoreCase("clear")) {
+            cache.clear();
+            sendMessage(sender, config.getPrefixedMessage("cache-cleared"));
+            return true;
+        }
+        
+        long hits = cache.getHits();
+        long misses = cache.getMisses();
+        long total = hits + misses;
+        String rate = total == 0 ? "0.0" : String.format(Locale.ROOT, "%.1f", hits * 100.0 / total);
+        
+        sendMessage(sender, config.getPrefixedMessage("cache-stats",
+            "%size%", String.valueOf(cache.size()),
+            "%hits%", String.valueOf(hits),
+            "%misses%", String.valueOf(misses),
+            "%rate%", rate));
+        
+        return true;
+    }
+    
+    private boolean handleStats(CommandSender sender, String[] args) {
+        if (!sender.hasPermission("foliatimber.reload")) {
+            sendMessage(sender, config.getPrefixedMessage("no-permission"));
+            return true;
+        }
+        
+        TimberMetrics metrics = plugin.getMetrics();
+        
+        if (args.length >= 2 && args[1].equalsIgnoreCase("reset")) {
+            metrics.reset();
+            sendMessage(sender, config.getPrefixedMessage("stats-reset"));
+            return true;
+        }
+        
+        TimberMetrics.Stats stats = metrics.getWindow();
+        long minutes = (System.currentTimeMillis() - stats.getSince()) / 60_000L;
+        sendMessage(sender, config.getPrefixedMessage("stats-header", "%minutes%", String.valueOf(minutes)));
+        
+        boolean empty = true;
+        for (String world : stats.getWorlds()) {
+            empty = false;
+            sendMessage(sender, config.getMessage("stats-world", "%world%", world));
+            for (TimberMetrics.Stage stage : TimberMetrics.Stage.values()) {
+                Histogram latency = stats.getLatency(stage, world);
+                if (latency == null || latency.getCount() == 0) continue;
+                
+                sendMessage(sender, config.getMessage("stats-stage",
+                    "%stage%", stage.name().toLowerCase(Locale.ROOT),
+                    "%count%", String.valueOf(latency.getCount()),
+                    "%p50%", formatNanos(latency.getPercentile(50)),
+                    "%p99%", formatNanos(latency.getPercentile(99)),
+                    "%max%", formatNanos(latency.getMax())));
+            }
+            
+            Histogram blocksRead = stats.getBlocksRead(world);
+            if (blocksRead != null && blocksRead.getCount() > 0) {
+                sendMessage(sender, config.getMessage("stats-blocks-read",
+                    "%p50%", String.valueOf(blocksRead.getPercentile(50)),
+                    "%p99%", String.valueOf(blocksRead.getPercentile(99)),
+                    "%max%", String.valueOf(blocksRead.getMax())));
+            }
+        }
+        
+        if (empty) {
+            sendMessage(sender, config.getMessage("stats-empty"));
+            return true;
+        }
+        
+        StringBuilder rejects = new StringBuilder();
+        stats.getRejects().forEach((reason, count) -> {
+            if (rejects.length() > 0) rejects.append(", ");
+            rejects.append(reason).append('=').append(count);
+        });
+        sendMessage(sender, config.getMessage("stats-rejects",
+            "%rejects%", rejects.length() > 0 ? rejects.toString() : "-"));
+        
+        return true;
+    }
+    
+    private static String formatNanos(long nanos) {
+        return String.format(Locale.ROOT, "%.2fms", nanos / 1_000_000.0);
+    }
+    
     private boolean handleHelp(CommandSender sender) {
         sendMessage(sender, config.getPrefixedMessage("help-header"));
         sendMessage(sender, config.getMessage("help-toggle"));
         sendMessage(sender, config.getMessage("help-reload"));
         sendMessage(sender, config.getMessage("help-lang"));
         sendMessage(sender, config.getMessage("help-debug"));
+        if (sender.hasPermission("foliatimber.reload")) {
+            sendMessage(sender, config.getMessage("help-cache"));
+            sendMessage(sender, config.getMessage("help-stats"));
+        }
         sendMessage(sender, config.getMessage("help-help"));
         
         return true;
     }
     
+    private void sendMessage(CommandSender sender, Component message) {
+        sender.sendMessage(message);
+    }
+    
     private void sendMessage(CommandSender sender, String message) {
         if (sender instanceof Player player) {
             MessageUtil.send(player, message);
@@ -186,12 +295,20 @@ public class TimberCommand implements CommandExecutor, TabCompleter {
             
             if (sender.hasPermission("foliatimber.reload")) {
                 if ("reload".startsWith(partial)) completions.add("reload");
+                if ("cache".startsWith(partial)) completions.add("cache");
+                if ("stats".startsWith(partial)) completions.add("stats");
             }
         } else if (args.length == 2 && (args[0].equalsIgnoreCase("lang") || args[0].equalsIgnoreCase("language"))) {
             String partial = args[1].toLowerCase();
             for (String lang : List.of("en", "tr", "de")) {
                 if (lang.startsWith(partial)) completions.add(lang);
             }
+        } else if (args.length == 2 && args[0].equalsIgnoreCase("cache")
+                && sender.hasPermission("foliatimber.reload")) {
+            if ("clear".startsWith(args[1].toLowerCase())) completions.add("clear");
+        } else if (args.length == 2 && args[0].equalsIgnoreCase("stats")
+                && sender.hasPermission("foliatimber.reload")) {
+            if ("reset".startsWith(args[1].toLowerCase())) completions.add("reset");
         }
         
         return completions;
@@ -1,6 +1,7 @@
 package com.can61cebi.foliatimber.config;
 
 import com.can61cebi.foliatimber.FoliaTimber;
+import net.kyori.adventure.text.Component;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
 
@@ -15,11 +16,13 @@ import java.util.List;
 /**
  * Manages plugin configuration and language files.
  */
-public class ConfigManager {
+public class ConfigManager implements SettingsSource {
     
     private final FoliaTimber plugin;
     private FileConfiguration config;
+    private volatile Settings settings;
     private FileConfiguration langConfig;
+    private volatile MessageCatalog messages;
     private String language;
     
     private static final List<String> AVAILABLE_LANGUAGES = Arrays.asList("en", "tr", "de");
@@ -36,6 +39,7 @@ public class ConfigManager {
         plugin.saveDefaultConfig();
         plugin.reloadConfig();
         this.config = plugin.getConfig();
+        this.settings = Settings.from(config);
         
         this.language = config.getString("language", "en");
         loadLanguage();
@@ -70,6 +74,9 @@ public class ConfigManager {
             langConfig.setDefaults(YamlConfiguration.loadConfiguration(
                 new InputStreamReader(defaultStream, StandardCharsets.UTF_8)));
         }
+        
+        // Parse all messages once
+        messages = new MessageCatalog(langConfig);
     }
     
     private void saveResource(String path) {
@@ -117,114 +124,209 @@ public class ConfigManager {
         return AVAILABLE_LANGUAGES.contains(lang.toLowerCase());
     }
     
+    @Override
+    public Settings getSettings() {
+        return settings;
+    }
+    
     // ========== Debug ==========
 
     public boolean isDebug() {
-        return config.getBoolean("debug", false);
+        return settings.debug();
     }
 
     // ========== General Settings ==========
 
     public boolean isEnabled() {
-        return config.getBoolean("general.enabled", true);
+        return settings.enabled();
     }
     
     public boolean isDefaultEnabled() {
-        return config.getBoolean("general.default-enabled", true);
+        return settings.defaultEnabled();
     }
     
     public boolean requireSneak() {
-        return config.getBoolean("general.require-sneak", false);
+        return settings.requireSneak();
     }
     
     public boolean requireAxe() {
-        return config.getBoolean("general.require-axe", true);
+        return settings.requireAxe();
     }
     
     public int getMaxTreeSize() {
-        return config.getInt("general.max-tree-size", 256);
+        return settings.maxTreeSize();
     }
     
     // ========== Protection Settings ==========
     
     public boolean useCoreProtect() {
-        return config.getBoolean("protection.use-coreprotect", true);
+        return settings.useCoreProtect();
     }
     
     public int getCoreProtectLookupDays() {
-        return config.getInt("protection.coreprotect-lookup-days", 30);
+        return settings.coreProtectLookupDays();
+    }
+    
+    public boolean usePlacedBlockIndex() {
+        return settings.placedBlockIndex();
+    }
+    
+    public int getPlacedBlockIndexSaveInterval() {
+        return settings.placedBlockIndexSaveInterval();
+    }
+    
+    public int getVerdictCacheSize() {
+        return settings.verdictCacheSize();
+    }
+    
+    public int getVerdictCacheTtl() {
+        return settings.verdictCacheTtl();
+    }
+    
+    public int getProtectionLookupThreads() {
+        return settings.protectionLookupThreads();
     }
     
     public boolean checkTreehouse() {
-        return config.getBoolean("protection.check-treehouse", true);
+        return settings.checkTreehouse();
     }
     
     public int getTreehouseCheckRadius() {
-        return config.getInt("protection.treehouse-check-radius", 2);
+        return settings.treehouseCheckRadius();
     }
     
     public boolean useWorldGuard() {
-        return config.getBoolean("protection.use-worldguard", true);
+        return settings.useWorldGuard();
+    }
+    
+    public int getWorldGuardCacheTtl() {
+        return settings.worldGuardCacheTtl();
     }
     
     // ========== Tree Detection Settings ==========
     
     public int getMinLeaves() {
-        return config.getInt("tree-detection.min-leaves", 5);
+        return settings.minLeaves();
     }
     
     public int getMinLogs() {
-        return config.getInt("tree-detection.min-logs", 3);
+        return settings.minLogs();
     }
     
     public int getLeafSearchRadius() {
-        return config.getInt("tree-detection.leaf-search-radius", 6);
+        return settings.leafSearchRadius();
     }
     
     public boolean checkHorizontalLogs() {
-        return config.getBoolean("tree-detection.check-horizontal-logs", true);
+        return settings.checkHorizontalLogs();
     }
     
     public boolean checkMixedLogs() {
-        return config.getBoolean("tree-detection.check-mixed-logs", true);
+        return settings.checkMixedLogs();
+    }
+    
+    public boolean asyncScan() {
+        return settings.asyncScan();
+    }
+    
+    public int getScanCacheSize() {
+        return settings.scanCacheSize();
+    }
+    
+    public int getScanCacheTtl() {
+        return settings.scanCacheTtl();
+    }
+    
+    public int getScanMaxReads() {
+        return settings.scanMaxReads();
+    }
+    
+    public long getScanMaxNanos() {
+        return settings.scanMaxNanos();
     }
     
     // ========== Chopping Settings ==========
     
     public boolean breakLeaves() {
-        return config.getBoolean("chopping.break-leaves", true);
+        return settings.breakLeaves();
     }
     
     public double getToolDamageMultiplier() {
-        return config.getDouble("chopping.tool-damage-multiplier", 1.0);
+        return settings.toolDamageMultiplier();
     }
     
     public boolean autoCollect() {
-        return config.getBoolean("chopping.auto-collect", true);
+        return settings.autoCollect();
+    }
+    
+    public boolean isSpreadChopping() {
+        return settings.spreadChopping();
+    }
+    
+    public int getChopBlocksPerTick() {
+        return settings.chopBlocksPerTick();
+    }
+    
+    public long getChopNanosPerTick() {
+        return settings.chopNanosPerTick();
+    }
+    
+    public String getChopOrder() {
+        return settings.chopOrder();
+    }
+    
+    public int getMaxConcurrentChopsPerRegion() {
+        return settings.maxConcurrentChopsPerRegion();
+    }
+    
+    public int getRegionBlocksPerTick() {
+        return settings.regionBlocksPerTick();
     }
     
     // ========== Effects Settings ==========
     
     public boolean useParticles() {
-        return config.getBoolean("effects.particles", true);
+        return settings.particles();
     }
     
     public boolean useSounds() {
-        return config.getBoolean("effects.sounds", true);
+        return settings.sounds();
+    }
+    
+    // ========== Metrics Settings ==========
+    
+    public boolean isMetricsHttpEnabled() {
+        return settings.metricsHttpEnabled();
+    }
+    
+    public String getMetricsHttpBind() {
+        return settings.metricsHttpBind();
+    }
+    
+    public int getMetricsHttpPort() {
+        return settings.metricsHttpPort();
+    }
+    
+    public String getMetricsFile() {
+        return settings.metricsFile();
+    }
+    
+    public int getMetricsFileInterval() {
+        return settings.metricsFileInterval();
     }
     
     // ========== Messages ==========
     
     public String getPrefix() {
-        return langConfig.getString("prefix", "&8[&6FoliaTimber&8] ");
+        return messages.getPrefix();
     }
     
-    public String getMessage(String key) {
-        return langConfig.getString(key, "&cMessage not found: " + key);
+    public Component getMessage(String key, String... replacements) {
+        return messages.get(key).render(replacements);
     }
     
-    public String getPrefixedMessage(String key) {
-        return getPrefix() + getMessage(key);
+    public Component getPrefixedMessage(String key, String... replacements) {
+        return messages.getPrefixed(key).render(replacements);
     }
     
     public String getLanguage() {
@@ -233,23 +335,11 @@ public class ConfigManager {
 
     // ========== Debug Messages ==========
 
-    public String getDebugPrefix() {
-        return langConfig.getString("debug-prefix", "&8[&bDebug&8] ");
-    }
-
-    public String getDebugMessage(String key) {
-        return getDebugPrefix() + langConfig.getString(key, "&cDebug message not found: " + key);
-    }
-
-    public String getDebugMessage(String key, String... replacements) {
-        String msg = getDebugPrefix() + langConfig.getString(key, "&cDebug message not found: " + key);
-        for (int i = 0; i < replacements.length - 1; i += 2) {
-            msg = msg.replace(replacements[i], replacements[i + 1]);
-        }
-        return msg;
+    public Component getDebugMessage(String key, String... replacements) {
+        return messages.getDebug(key).render(replacements);
     }
 
-    public String getRawDebugMessage(String key) {
-        return langConfig.getString(key, "");
+    public String getRawDebugMessage(String key, String... replacements) {
+        return messages.getRaw(key).format(replacements);
     }
 }
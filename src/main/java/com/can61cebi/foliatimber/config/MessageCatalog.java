@@ -0,0 +1,76 @@
+package com.can61cebi.foliatimber.config;
+
+import com.can61cebi.foliatimber.util.MessageTemplate;
+import org.bukkit.configuration.file.FileConfiguration;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Parsed messages of one language file.
+ * Every key is parsed once when the language is loaded; prefixed variants
+ * are parsed on first use and kept. Rebuilt on reload and language change.
+ */
+public class MessageCatalog {
+    
+    private static final String DEFAULT_PREFIX = "&8[&6FoliaTimber&8] ";
+    private static final String DEFAULT_DEBUG_PREFIX = "&8[&bDebug&8] ";
+    
+    private final FileConfiguration lang;
+    private final String prefix;
+    private final String debugPrefix;
+    
+    private final Map<String, MessageTemplate> messages = new ConcurrentHashMap<>();
+    private final Map<String, MessageTemplate> prefixed = new ConcurrentHashMap<>();
+    private final Map<String, MessageTemplate> debug = new ConcurrentHashMap<>();
+    
+    public MessageCatalog(FileConfiguration lang) {
+        this.lang = lang;
+        this.prefix = lang.getString("prefix", DEFAULT_PREFIX);
+        this.debugPrefix = lang.getString("debug-prefix", DEFAULT_DEBUG_PREFIX);
+        
+        for (String key : lang.getKeys(true)) {
+            if (lang.isString(key)) {
+                messages.put(key, MessageTemplate.parse(lang.getString(key)));
+            }
+        }
+    }
+    
+    public String getPrefix() {
+        return prefix;
+    }
+    
+    /**
+     * Get a message without prefix.
+     */
+    public MessageTemplate get(String key) {
+        // Keys missing from an older lang file fall back to the bundled defaults
+        return messages.computeIfAbsent(key, k -> MessageTemplate.parse(orElse(lang.getString(k), "&cMessage not found: " + k)));
+    }
+    
+    /**
+     * Get a message with the plugin prefix.
+     */
+    public MessageTemplate getPrefixed(String key) {
+        return prefixed.computeIfAbsent(key, k -> MessageTemplate.parse(prefix + get(k).raw()));
+    }
+    
+    /**
+     * Get a message with the debug prefix.
+     */
+    public MessageTemplate getDebug(String key) {
+        return debug.computeIfAbsent(key, k -> MessageTemplate.parse(debugPrefix
+                + orElse(lang.getString(k), "&cDebug message not found: " + k)));
+    }
+    
+    /**
+     * Get a message to embed in another one (empty if missing).
+     */
+    public MessageTemplate getRaw(String key) {
+        return lang.contains(key) ? get(key) : MessageTemplate.parse("");
+    }
+    
+    private static String orElse(String value, String fallback) {
+        return value != null ? value : fallback;
+    }
+}
@@ -0,0 +1,115 @@
+package com.can61cebi.foliatimber.config;
+
+import org.bukkit.configuration.file.FileConfiguration;
+
+import java.util.Locale;
+
+/**
+ * Immutable, typed snapshot of config.yml.
+ * Compiled once per load/reload so hot paths read plain fields instead of
+ * walking the YAML tree, and every reader sees one consistent configuration.
+ */
+public record Settings(
+    // Debug
+    boolean debug,
+    // General
+    boolean enabled,
+    boolean defaultEnabled,
+    boolean requireSneak,
+    boolean requireAxe,
+    int maxTreeSize,
+    // Protection
+    boolean useCoreProtect,
+    int coreProtectLookupDays,
+    boolean placedBlockIndex,
+    int placedBlockIndexSaveInterval,
+    int verdictCacheSize,
+    int verdictCacheTtl,
+    int protectionLookupThreads,
+    boolean checkTreehouse,
+    int treehouseCheckRadius,
+    boolean useWorldGuard,
+    int worldGuardCacheTtl,
+    // Tree detection
+    int minLeaves,
+    int minLogs,
+    int leafSearchRadius,
+    boolean checkHorizontalLogs,
+    boolean checkMixedLogs,
+    boolean asyncScan,
+    int scanCacheSize,
+    int scanCacheTtl,
+    int scanMaxReads,
+    long scanMaxNanos,
+    // Chopping
+    boolean breakLeaves,
+    double toolDamageMultiplier,
+    boolean autoCollect,
+    boolean spreadChopping,
+    int chopBlocksPerTick,
+    long chopNanosPerTick,
+    String chopOrder,
+    int maxConcurrentChopsPerRegion,
+    int regionBlocksPerTick,
+    // Effects
+    boolean particles,
+    boolean sounds,
+    // Metrics
+    boolean metricsHttpEnabled,
+    String metricsHttpBind,
+    int metricsHttpPort,
+    String metricsFile,
+    int metricsFileInterval
+) {
+    
+    /**
+     * Compile a loaded configuration into a settings snapshot.
+     */
+    public static Settings from(FileConfiguration config) {
+        return new Settings(
+            config.getBoolean("debug", false),
+            config.getBoolean("general.enabled", true),
+            config.getBoolean("general.default-enabled", true),
+            config.getBoolean("general.require-sneak", false),
+            config.getBoolean("general.require-axe", true),
+            config.getInt("general.max-tree-size", 256),
+            config.getBoolean("protection.use-coreprotect", true),
+            config.getInt("protection.coreprotect-lookup-days", 30),
+            config.getBoolean("protection.placed-block-index", true),
+            config.getInt("protection.placed-block-index-save-interval", 300),
+            config.getInt("protection.verdict-cache-size", 10000),
+            config.getInt("protection.verdict-cache-ttl", 300),
+            config.getInt("protection.lookup-threads", 4),
+            config.getBoolean("protection.check-treehouse", true),
+            config.getInt("protection.treehouse-check-radius", 2),
+            config.getBoolean("protection.use-worldguard", true),
+            config.getInt("protection.worldguard-cache-ttl", 30),
+            config.getInt("tree-detection.min-leaves", 5),
+            config.getInt("tree-detection.min-logs", 3),
+            config.getInt("tree-detection.leaf-search-radius", 6),
+            config.getBoolean("tree-detection.check-horizontal-logs", true),
+            config.getBoolean("tree-detection.check-mixed-logs", true),
+            config.getBoolean("tree-detection.async-scan", false),
+            config.getInt("tree-detection.scan-cache-size", 256),
+            config.getInt("tree-detection.scan-cache-ttl", 10),
+            config.getInt("tree-detection.scan-max-reads", 200_000),
+            config.getLong("tree-detection.scan-max-nanos", 0L),
+            config.getBoolean("chopping.break-leaves", true),
+            config.getDouble("chopping.tool-damage-multiplier", 1.0),
+            config.getBoolean("chopping.auto-collect", true),
+            "spread".equalsIgnoreCase(config.getString("chopping.mode", "instant")),
+            config.getInt("chopping.blocks-per-tick", 32),
+            config.getLong("chopping.max-nanos-per-tick", 2_000_000L),
+            config.getString("chopping.order", "none").toLowerCase(Locale.ROOT),
+            config.getInt("chopping.max-concurrent-per-region", 4),
+            config.getInt("chopping.region-blocks-per-tick", 256),
+            config.getBoolean("effects.particles", true),
+            config.getBoolean("effects.sounds", true),
+            config.getBoolean("metrics.http-enabled", false),
+            config.getString("metrics.http-bind", "127.0.0.1"),
+            config.getInt("metrics.http-port", 9464),
+            config.getString("metrics.file", "metrics.prom"),
+            config.getInt("metrics.file-interval", 0)
+        );
+    }
+}
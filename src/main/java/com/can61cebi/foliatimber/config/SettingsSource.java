@@ -0,0 +1,16 @@
+package com.can61cebi.foliatimber.config;
+
+/**
+ * Supplies the current {@link Settings} snapshot.
+ * Implemented by {@link ConfigManager}; the scanner and its cache only need this,
+ * so they also run outside a server (benchmarks).
+ */
+@FunctionalInterface
+public interface SettingsSource {
+    
+    /**
+     * Get the current settings snapshot.
+     * Read it once per operation to see one consistent configuration across a reload.
+     */
+    Settings getSettings();
+}
@@ -2,13 +2,21 @@ package com.can61cebi.foliatimber.listener;
 
 import com.can61cebi.foliatimber.FoliaTimber;
 import com.can61cebi.foliatimber.config.ConfigManager;
+import com.can61cebi.foliatimber.config.Settings;
+import com.can61cebi.foliatimber.protection.ProtectionResult;
+import com.can61cebi.foliatimber.protection.RegionVerdict;
+import com.can61cebi.foliatimber.tree.SnapshotBlockSource;
 import com.can61cebi.foliatimber.tree.TreeChopper;
 import com.can61cebi.foliatimber.tree.TreeData;
 import com.can61cebi.foliatimber.tree.TreeDetector;
+import com.can61cebi.foliatimber.tree.TreeScan;
+import com.can61cebi.foliatimber.tree.TreeScanCache;
 import com.can61cebi.foliatimber.util.MaterialUtil;
 import com.can61cebi.foliatimber.util.MessageUtil;
+import net.kyori.adventure.text.Component;
 import org.bukkit.Location;
 import org.bukkit.Material;
+import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
@@ -17,13 +25,16 @@ import org.bukkit.event.Listener;
 import org.bukkit.event.block.BlockBreakEvent;
 import org.bukkit.inventory.ItemStack;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Handles block break events for timber functionality.
- * All block operations happen on the region thread for Folia safety.
+ * All block operations happen on the region thread for Folia safety;
+ * optional snapshot scans run async and re-check blocks on the region thread.
  */
 public class BlockBreakListener implements Listener {
 
@@ -49,8 +60,9 @@ public class BlockBreakListener implements Listener {
         Player player = event.getPlayer();
         Block block = event.getBlock();
 
-        // Basic checks
-        if (!config.isEnabled()) return;
+        // Basic checks (one settings snapshot for the whole event)
+        Settings settings = config.getSettings();
+        if (!settings.enabled()) return;
         if (!player.hasPermission("foliatimber.use")) return;
 
         Material blockType = block.getType();
@@ -63,12 +75,12 @@ public class BlockBreakListener implements Listener {
 
         // Axe check
         ItemStack tool = player.getInventory().getItemInMainHand();
-        if (config.requireAxe() && !MaterialUtil.isAxe(tool.getType())) {
+        if (settings.requireAxe() && !MaterialUtil.isAxe(tool.getType())) {
             return;
         }
 
         // Sneak check
-        if (config.requireSneak() && !player.isSneaking()) {
+        if (settings.requireSneak() && !player.isSneaking()) {
             return;
         }
 
@@ -77,19 +89,70 @@ public class BlockBreakListener implements Listener {
             return;
         }
 
-        // FOLIA SAFE: All checks and tree scanning done on the REGION THREAD (synchronously)
-        // Only CoreProtect database queries will be done async
+        // Keep the start block in the placed block index until the protection verdict
+        // (the MONITOR break handler would clear it before the async check reads it)
+        plugin.getPlacedBlockIndex().holdClear(block.getWorld(), block.getX(), block.getY(), block.getZ());
+
+        // FOLIA SAFE: Tree scanning reads the world on the REGION THREAD (synchronously),
+        // or captured chunk snapshots on an async worker when async-scan is enabled.
+        // Only CoreProtect database queries and snapshot scans run async
 
         Location blockLocation = block.getLocation();
         Material logType = blockType;
         boolean debug = isDebugEnabled(player);
+        TreeDetector detector = plugin.getTreeDetector();
+
+        if (settings.asyncScan()) {
+            World world = block.getWorld();
+            int x = block.getX();
+            int y = block.getY();
+            int z = block.getZ();
+
+            // Unchanged tree scanned recently: no snapshot needed
+            TreeScan cached = detector.getCachedScan(world, x, y, z);
+            if (cached != null) {
+                processTree(player, block, cached.toTreeData(world, true), tool, debug, settings);
+                return;
+            }
+
+            // 1. Capture chunk snapshots on the region thread and scan them async
+            TreeScanCache.Ticket ticket = detector.reserveScan(world, x, y, z);
+            String worldName = world.getName();
+            SnapshotBlockSource snapshot = SnapshotBlockSource.capture(world, x, z, detector.getScanWindowRadius());
+
+            plugin.runAsync(() -> {
+                TreeScan scan;
+                try {
+                    scan = detector.scan(worldName, snapshot, x, y, z, logType);
+                } catch (Exception e) {
+                    plugin.getLogger().warning("Async tree scan failed: " + e.getMessage());
+                    detector.completeScan(ticket, null);
+                    finishProcessing(player, block);
+                    return;
+                }
+                detector.completeScan(ticket, scan);
 
-        // 1. Scan tree SYNCHRONOUSLY (on region thread - this is safe)
-        TreeData treeData = plugin.getTreeDetector().scanTree(block, logType);
+                // Back on the region thread: drop blocks that changed meanwhile, then continue
+                plugin.runAtLocation(blockLocation, () ->
+                        processTree(player, block, scan.toTreeData(world, true), tool, debug, settings));
+            });
+        } else {
+            // 1. Scan tree SYNCHRONOUSLY (on region thread - this is safe)
+            processTree(player, block, detector.scanTree(block, logType), tool, debug, settings);
+        }
+    }
+
+    /**
+     * Validate a scanned tree, run protection checks and chop it.
+     * Must be called on the region thread owning the start block.
+     */
+    private void processTree(Player player, Block block, TreeData treeData, ItemStack tool, boolean debug,
+                             Settings settings) {
+        Location blockLocation = block.getLocation();
 
         // Debug: Show scan results
         if (debug) {
-            String scanMsg = config.getDebugMessage("debug-scan-result",
+            Component scanMsg = config.getDebugMessage("debug-scan-result",
                     "%logs%", String.valueOf(treeData.logs().size()),
                     "%leaves%", String.valueOf(treeData.leaves().size()),
                     "%structures%", String.valueOf(treeData.potentialStructureBlocks().size()));
@@ -100,46 +163,47 @@ public class BlockBreakListener implements Listener {
         if (!treeData.isNaturalTree()) {
             if (debug) {
                 String reason = getLocalizedReason(treeData.failReason(), treeData);
-                String msg = config.getDebugMessage("debug-not-natural", "%reason%", reason);
+                Component msg = config.getDebugMessage("debug-not-natural", "%reason%", reason);
                 MessageUtil.send(player, msg);
             }
-            processingPlayers.remove(player.getUniqueId());
+            finishProcessing(player, block);
             return;
         }
 
-        // 3. If CoreProtect is enabled and player doesn't have bypass, check async
+        // 3. WorldGuard: the player must be able to build wherever the felling breaks blocks
+        // (in-memory region lookups, answered for the whole tree at once)
+        if (settings.useWorldGuard() && plugin.getWorldGuardHook().isEnabled()) {
+            RegionVerdict verdict = plugin.getWorldGuardHook().checkBlocks(player, getFellingBlocks(treeData, settings));
+            if (!verdict.isAllowed()) {
+                MessageUtil.send(player, config.getPrefixedMessage(
+                        verdict == RegionVerdict.NO_TIMBER ? "region-timber-denied" : "region-protected"));
+                finishProcessing(player, block);
+                return;
+            }
+        }
+
+        // 4. If protection is active and player doesn't have bypass, check async
+        // (placed block index first, then CoreProtect history)
         boolean hasBypass = player.hasPermission("foliatimber.bypass");
-        boolean useCoreProtect = config.useCoreProtect() && plugin.getCoreProtectHook().isEnabled();
+        boolean useProtection = plugin.getStructureProtection().isActive();
 
-        if (!hasBypass && useCoreProtect) {
+        if (!hasBypass && useProtection) {
             if (debug) {
                 MessageUtil.send(player, config.getDebugMessage("debug-coreprotect-check"));
             }
 
-            // Run CoreProtect queries async, then come back to region thread
+            // Run protection queries async, then come back to region thread
             plugin.runAsync(() -> {
                 try {
-                    // Check if the starting block is player-placed
-                    boolean isPlayerPlaced = plugin.getStructureProtection().isPlayerPlacedBlock(block);
+                    // Check start block, logs and treehouse blocks with batched lookups
+                    ProtectionResult result = plugin.getStructureProtection().checkTree(block, treeData);
 
-                    if (isPlayerPlaced) {
+                    if (result.isProtected()) {
                         plugin.runAtLocation(blockLocation, () -> {
                             if (debug) {
-                                MessageUtil.send(player, config.getDebugMessage("debug-block-player-placed"));
-                            } else {
-                                MessageUtil.send(player, config.getPrefixedMessage("structure-protected"));
-                            }
-                        });
-                        return;
-                    }
-
-                    // Check if any log in tree is player-placed
-                    boolean anyPlayerPlaced = plugin.getStructureProtection().anyBlockPlacedByPlayer(treeData.logs());
-
-                    if (anyPlayerPlaced) {
-                        plugin.runAtLocation(blockLocation, () -> {
-                            if (debug) {
-                                MessageUtil.send(player, config.getDebugMessage("debug-logs-player-placed"));
+                                MessageUtil.send(player, getProtectionDebugMessage(result, treeData));
+                            } else if (result == ProtectionResult.TREEHOUSE) {
+                                MessageUtil.send(player, config.getPrefixedMessage("treehouse-protected"));
                             } else {
                                 MessageUtil.send(player, config.getPrefixedMessage("structure-protected"));
                             }
@@ -147,44 +211,58 @@ public class BlockBreakListener implements Listener {
                         return;
                     }
 
-                    // Check for treehouse (player-placed structure blocks attached to tree)
-                    boolean hasTreehouse = plugin.getStructureProtection().hasTreehouse(treeData.potentialStructureBlocks());
-
-                    if (hasTreehouse) {
-                        plugin.runAtLocation(blockLocation, () -> {
-                            if (debug) {
-                                String msg = config.getDebugMessage("debug-treehouse-detected",
-                                        "%count%", String.valueOf(treeData.potentialStructureBlocks().size()));
-                                MessageUtil.send(player, msg);
-                            } else {
-                                MessageUtil.send(player, config.getPrefixedMessage("treehouse-protected"));
-                            }
-                        });
-                        return;
-                    }
-
                     // All checks passed, start chopping on region thread
                     plugin.runAtLocation(blockLocation, () -> {
                         if (debug) {
                             MessageUtil.send(player, config.getDebugMessage("debug-passed"));
                         }
-                        TreeChopper chopper = new TreeChopper(plugin, player, treeData, tool);
-                        chopper.startChopping();
+                        plugin.getChopScheduler().submit(new TreeChopper(plugin, settings, player, treeData, tool));
                     });
 
                 } finally {
-                    processingPlayers.remove(player.getUniqueId());
+                    finishProcessing(player, block);
                 }
             });
         } else {
-            // No CoreProtect check needed, start chopping immediately
+            // No protection check needed, start chopping immediately
             if (debug) {
                 MessageUtil.send(player, config.getDebugMessage("debug-passed"));
             }
-            TreeChopper chopper = new TreeChopper(plugin, player, treeData, tool);
-            chopper.startChopping();
-            processingPlayers.remove(player.getUniqueId());
+            plugin.getChopScheduler().submit(new TreeChopper(plugin, settings, player, treeData, tool));
+            finishProcessing(player, block);
+        }
+    }
+
+    /**
+     * Allow the player to start the next felling and release the start block's index entry.
+     */
+    private void finishProcessing(Player player, Block block) {
+        plugin.getPlacedBlockIndex().releaseClear(block.getWorld(), block.getX(), block.getY(), block.getZ());
+        processingPlayers.remove(player.getUniqueId());
+    }
+
+    /**
+     * Blocks the felling would break: logs, plus leaves if they are broken too.
+     */
+    private List<Block> getFellingBlocks(TreeData treeData, Settings settings) {
+        List<Block> blocks = new ArrayList<>(treeData.logs());
+        if (settings.breakLeaves()) {
+            blocks.addAll(treeData.leaves());
         }
+        return blocks;
+    }
+
+    /**
+     * Get the debug message explaining why protection blocked a tree.
+     */
+    private Component getProtectionDebugMessage(ProtectionResult result, TreeData treeData) {
+        return switch (result) {
+            case START_BLOCK_PLACED -> config.getDebugMessage("debug-block-player-placed");
+            case LOGS_PLACED -> config.getDebugMessage("debug-logs-player-placed");
+            case TREEHOUSE -> config.getDebugMessage("debug-treehouse-detected",
+                    "%count%", String.valueOf(treeData.potentialStructureBlocks().size()));
+            case CLEAR -> config.getDebugMessage("debug-passed");
+        };
     }
 
     /**
@@ -194,15 +272,16 @@ public class BlockBreakListener implements Listener {
         if (reasonCode == null) return "";
 
         return switch (reasonCode) {
-            case TreeDetector.REASON_MIN_LEAVES -> config.getRawDebugMessage("debug-reason-min-leaves")
-                    .replace("%count%", String.valueOf(treeData.leaves().size()))
-                    .replace("%min%", String.valueOf(config.getMinLeaves()));
-            case TreeDetector.REASON_MIN_LOGS -> config.getRawDebugMessage("debug-reason-min-logs")
-                    .replace("%count%", String.valueOf(treeData.logs().size()))
-                    .replace("%min%", String.valueOf(config.getMinLogs()));
+            case TreeDetector.REASON_MIN_LEAVES -> config.getRawDebugMessage("debug-reason-min-leaves",
+                    "%count%", String.valueOf(treeData.leaves().size()),
+                    "%min%", String.valueOf(config.getMinLeaves()));
+            case TreeDetector.REASON_MIN_LOGS -> config.getRawDebugMessage("debug-reason-min-logs",
+                    "%count%", String.valueOf(treeData.logs().size()),
+                    "%min%", String.valueOf(config.getMinLogs()));
             case TreeDetector.REASON_HORIZONTAL -> config.getRawDebugMessage("debug-reason-horizontal");
             case TreeDetector.REASON_MIXED_LOGS -> config.getRawDebugMessage("debug-reason-mixed-logs");
             case TreeDetector.REASON_NO_LOGS_ABOVE -> config.getRawDebugMessage("debug-reason-no-logs-above");
+            case TreeDetector.REASON_SCAN_BUDGET -> config.getRawDebugMessage("debug-reason-scan-budget");
             default -> reasonCode;
         };
     }
@@ -0,0 +1,111 @@
+package com.can61cebi.foliatimber.listener;
+
+import com.can61cebi.foliatimber.FoliaTimber;
+import com.can61cebi.foliatimber.config.ConfigManager;
+import com.can61cebi.foliatimber.protection.PlacedBlockIndex;
+import com.can61cebi.foliatimber.protection.PlacementVerdictCache;
+import com.can61cebi.foliatimber.tree.TreeScanCache;
+import com.can61cebi.foliatimber.util.BlockKey;
+import com.can61cebi.foliatimber.util.MaterialUtil;
+import org.bukkit.Material;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockBurnEvent;
+import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.block.BlockMultiPlaceEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.block.LeavesDecayEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.world.StructureGrowEvent;
+
+/**
+ * Tracks block changes that cached data depends on
+ * (placed block index, cached placement verdicts and tree scans).
+ * Runs at MONITOR priority so only changes that actually happen are recorded.
+ */
+public class BlockTrackingListener implements Listener {
+
+    private final ConfigManager config;
+    private final PlacedBlockIndex placedBlocks;
+    private final PlacementVerdictCache verdictCache;
+    private final TreeScanCache scanCache;
+
+    public BlockTrackingListener(FoliaTimber plugin) {
+        this.config = plugin.getConfigManager();
+        this.placedBlocks = plugin.getPlacedBlockIndex();
+        this.verdictCache = plugin.getVerdictCache();
+        this.scanCache = plugin.getTreeScanCache();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockPlace(BlockPlaceEvent event) {
+        if (event instanceof BlockMultiPlaceEvent multiPlace) {
+            // Beds, doors etc. place several blocks at once
+            for (BlockState state : multiPlace.getReplacedBlockStates()) {
+                trackPlaced(state.getBlock());
+            }
+        } else {
+            trackPlaced(event.getBlockPlaced());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBreak(BlockBreakEvent event) {
+        forget(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockExplode(BlockExplodeEvent event) {
+        for (Block block : event.blockList()) {
+            forget(block);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityExplode(EntityExplodeEvent event) {
+        for (Block block : event.blockList()) {
+            forget(block);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onStructureGrow(StructureGrowEvent event) {
+        // Naturally grown logs and leaves replace whatever was recorded there
+        for (BlockState state : event.getBlocks()) {
+            forget(state.getBlock());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onLeavesDecay(LeavesDecayEvent event) {
+        forget(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBurn(BlockBurnEvent event) {
+        forget(event.getBlock());
+    }
+
+    private void trackPlaced(Block block) {
+        verdictCache.invalidate(block.getWorld(), BlockKey.pack(block.getX(), block.getY(), block.getZ()));
+        scanCache.invalidate(block.getWorld(), block.getX(), block.getY(), block.getZ());
+        if (!config.usePlacedBlockIndex()) return;
+        
+        Material type = block.getType();
+        if (MaterialUtil.isLogBlock(type) || MaterialUtil.isStructureBlock(type)) {
+            placedBlocks.markPlaced(block.getWorld(), block.getX(), block.getY(), block.getZ());
+        }
+    }
+
+    private void forget(Block block) {
+        verdictCache.invalidate(block.getWorld(), BlockKey.pack(block.getX(), block.getY(), block.getZ()));
+        scanCache.invalidate(block.getWorld(), block.getX(), block.getY(), block.getZ());
+        if (!config.usePlacedBlockIndex()) return;
+        
+        placedBlocks.clear(block.getWorld(), block.getX(), block.getY(), block.getZ());
+    }
+}
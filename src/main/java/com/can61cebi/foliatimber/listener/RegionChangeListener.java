@@ -0,0 +1,60 @@
+package com.can61cebi.foliatimber.listener;
+
+import com.can61cebi.foliatimber.protection.RegionVerdictCache;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerCommandPreprocessEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.server.ServerCommandEvent;
+
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drops cached WorldGuard verdicts when regions may have changed.
+ * WorldGuard has no region change event, so region commands are watched instead;
+ * changes made through its API are covered by the cache TTL. The commands fire these
+ * events before WorldGuard runs them (asynchronously), so caching stays paused for a while.
+ */
+public class RegionChangeListener implements Listener {
+
+    private static final Set<String> REGION_COMMANDS = Set.of("rg", "region", "regions", "wg", "worldguard");
+
+    // Time given to WorldGuard to apply a region command
+    private static final long COMMAND_SETTLE_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final RegionVerdictCache verdictCache;
+
+    public RegionChangeListener(RegionVerdictCache verdictCache) {
+        this.verdictCache = verdictCache;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerCommand(PlayerCommandPreprocessEvent event) {
+        checkCommand(event.getMessage());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onServerCommand(ServerCommandEvent event) {
+        checkCommand(event.getCommand());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        verdictCache.invalidatePlayer(event.getPlayer().getUniqueId());
+    }
+
+    private void checkCommand(String command) {
+        String label = command.startsWith("/") ? command.substring(1) : command;
+        int space = label.indexOf(' ');
+        if (space >= 0) label = label.substring(0, space);
+        int namespace = label.indexOf(':');
+        if (namespace >= 0) label = label.substring(namespace + 1);
+
+        if (REGION_COMMANDS.contains(label.toLowerCase(Locale.ROOT))) {
+            verdictCache.clearAndPause(COMMAND_SETTLE_NANOS);
+        }
+    }
+}
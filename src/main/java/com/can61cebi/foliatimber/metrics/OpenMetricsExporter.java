@@ -0,0 +1,248 @@
+package com.can61cebi.foliatimber.metrics;
+
+import com.can61cebi.foliatimber.FoliaTimber;
+import com.can61cebi.foliatimber.config.ConfigManager;
+import com.can61cebi.foliatimber.protection.PlacementVerdictCache;
+import com.can61cebi.foliatimber.tree.TreeScanCache;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Exposes {@link TimberMetrics} and cache counters in the OpenMetrics text format,
+ * over a small HTTP endpoint and/or a file rewritten periodically.
+ * Rendering only reads atomics, so scrapes never touch region threads.
+ */
+public class OpenMetricsExporter {
+    
+    public static final String CONTENT_TYPE = "application/openmetrics-text; version=1.0.0; charset=utf-8";
+    
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+    
+    private final FoliaTimber plugin;
+    private HttpServer server;
+    private ExecutorService executor;
+    // Bumped on every start/stop so timers of an old configuration stop themselves
+    private volatile int generation;
+    
+    public OpenMetricsExporter(FoliaTimber plugin) {
+        this.plugin = plugin;
+    }
+    
+    /**
+     * Start the HTTP endpoint and file writer enabled in the config.
+     */
+    public synchronized void start() {
+        ConfigManager config = plugin.getConfigManager();
+        int current = ++generation;
+        
+        if (config.isMetricsHttpEnabled()) {
+            startServer(config.getMetricsHttpBind(), config.getMetricsHttpPort());
+        }
+        
+        int interval = config.getMetricsFileInterval();
+        if (interval > 0) {
+            Path file = plugin.getDataFolder().toPath().resolve(config.getMetricsFile());
+            long ticks = interval * 20L;
+            plugin.getScheduler().runAsyncTimerWhile(() -> {
+                if (generation != current) return false;
+                writeFile(file);
+                return true;
+            }, ticks, ticks);
+        }
+    }
+    
+    /**
+     * Stop the HTTP endpoint and file writer.
+     */
+    public synchronized void stop() {
+        generation++;
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+    
+    /**
+     * Apply changed settings after a reload.
+     */
+    public synchronized void restart() {
+        stop();
+        start();
+    }
+    
+    private void startServer(String bind, int port) {
+        try {
+            server = HttpServer.create(new InetSocketAddress(bind, port), 0);
+            executor = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "FoliaTimber-Metrics");
+                thread.setDaemon(true);
+                return thread;
+            });
+            server.setExecutor(executor);
+            server.createContext("/metrics", this::handle);
+            server.start();
+            plugin.getLogger().info("Metrics endpoint: http://" + bind + ":" + port + "/metrics");
+        } catch (IOException | IllegalArgumentException e) {
+            plugin.getLogger().warning("Metrics endpoint could not start on " + bind + ":" + port + ": " + e.getMessage());
+            stop();
+        }
+    }
+    
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod()) && !"HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = render().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            if ("HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+    
+    /**
+     * Write the metrics to a temp file and move it into place, so readers never see half a file.
+     */
+    private void writeFile(Path file) {
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.writeString(tmp, render(), StandardCharsets.UTF_8);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            plugin.getLogger().warning("Metrics file could not be written: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Render all metrics in the OpenMetrics text exposition format.
+     */
+    public String render() {
+        TimberMetrics metrics = plugin.getMetrics();
+        TimberMetrics.Stats totals = metrics.getTotals();
+        StringBuilder out = new StringBuilder(4096);
+        
+        // Stage latency per world
+        header(out, "foliatimber_stage_duration_seconds", "summary", "Time spent per stage and world.", "seconds");
+        for (String world : totals.getWorlds()) {
+            for (TimberMetrics.Stage stage : TimberMetrics.Stage.values()) {
+                Histogram histogram = totals.getLatency(stage, world);
+                if (histogram == null || histogram.getCount() == 0) continue;
+                String labels = "stage=\"" + stage.name().toLowerCase(Locale.ROOT) + "\",world=\"" + escape(world) + "\"";
+                summary(out, "foliatimber_stage_duration_seconds", labels, histogram, NANOS_PER_SECOND);
+            }
+        }
+        header(out, "foliatimber_stage_duration_max_seconds", "gauge", "Slowest recorded run per stage and world.", "seconds");
+        for (String world : totals.getWorlds()) {
+            for (TimberMetrics.Stage stage : TimberMetrics.Stage.values()) {
+                Histogram histogram = totals.getLatency(stage, world);
+                if (histogram == null || histogram.getCount() == 0) continue;
+                String labels = "stage=\"" + stage.name().toLowerCase(Locale.ROOT) + "\",world=\"" + escape(world) + "\"";
+                sample(out, "foliatimber_stage_duration_max_seconds", labels, histogram.getMax() / NANOS_PER_SECOND);
+            }
+        }
+        
+        // Blocks read per scan
+        header(out, "foliatimber_scan_blocks_read", "summary", "Blocks read per tree scan.", null);
+        for (String world : totals.getWorlds()) {
+            Histogram histogram = totals.getBlocksRead(world);
+            if (histogram == null || histogram.getCount() == 0) continue;
+            summary(out, "foliatimber_scan_blocks_read", "world=\"" + escape(world) + "\"", histogram, 1);
+        }
+        
+        // Fellings and rejects
+        counter(out, "foliatimber_trees_felled", "Trees felled.", metrics.getTreesFelled());
+        counter(out, "foliatimber_blocks_broken", "Blocks broken by fellings.", metrics.getBlocksBroken());
+        header(out, "foliatimber_rejects", "counter", "Trees rejected by scan or protection, by reason.", null);
+        for (Map.Entry<String, Long> entry : totals.getRejects().entrySet()) {
+            sample(out, "foliatimber_rejects_total", "reason=\"" + escape(entry.getKey()) + "\"", entry.getValue());
+        }
+        
+        // CoreProtect
+        Histogram lookups = metrics.getCoreProtectLookups();
+        header(out, "foliatimber_coreprotect_lookup_seconds", "summary", "CoreProtect lookup latency.", "seconds");
+        summary(out, "foliatimber_coreprotect_lookup_seconds", null, lookups, NANOS_PER_SECOND);
+        counter(out, "foliatimber_coreprotect_lookup_failures", "CoreProtect lookups that threw.",
+                metrics.getCoreProtectFailures());
+        
+        // Caches
+        PlacementVerdictCache verdictCache = plugin.getVerdictCache();
+        TreeScanCache scanCache = plugin.getTreeScanCache();
+        header(out, "foliatimber_cache_hits", "counter", "Cache hits.", null);
+        sample(out, "foliatimber_cache_hits_total", "cache=\"verdict\"", verdictCache.getHits());
+        sample(out, "foliatimber_cache_hits_total", "cache=\"scan\"", scanCache.getHits());
+        header(out, "foliatimber_cache_misses", "counter", "Cache misses.", null);
+        sample(out, "foliatimber_cache_misses_total", "cache=\"verdict\"", verdictCache.getMisses());
+        sample(out, "foliatimber_cache_misses_total", "cache=\"scan\"", scanCache.getMisses());
+        header(out, "foliatimber_cache_entries", "gauge", "Entries currently cached.", null);
+        sample(out, "foliatimber_cache_entries", "cache=\"verdict\"", verdictCache.size());
+        sample(out, "foliatimber_cache_entries", "cache=\"scan\"", scanCache.size());
+        
+        out.append("# EOF\n");
+        return out.toString();
+    }
+    
+    private static void header(StringBuilder out, String name, String type, String help, String unit) {
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        if (unit != null) out.append("# UNIT ").append(name).append(' ').append(unit).append('\n');
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+    }
+    
+    private static void counter(StringBuilder out, String name, String help, long value) {
+        header(out, name, "counter", help, null);
+        sample(out, name + "_total", null, value);
+    }
+    
+    /**
+     * Summary samples: quantiles, count and sum, values divided by scale.
+     */
+    private static void summary(StringBuilder out, String name, String labels, Histogram histogram, double scale) {
+        String prefix = labels != null ? labels + "," : "";
+        for (double quantile : QUANTILES) {
+            sample(out, name, prefix + "quantile=\"" + quantile + "\"",
+                    histogram.getPercentile(quantile * 100) / scale);
+        }
+        sample(out, name + "_count", labels, histogram.getCount());
+        sample(out, name + "_sum", labels, histogram.getSum() / scale);
+    }
+    
+    private static void sample(StringBuilder out, String name, String labels, double value) {
+        out.append(name);
+        if (labels != null) out.append('{').append(labels).append('}');
+        out.append(' ').append(value).append('\n');
+    }
+    
+    private static void sample(StringBuilder out, String name, String labels, long value) {
+        out.append(name);
+        if (labels != null) out.append('{').append(labels).append('}');
+        out.append(' ').append(value).append('\n');
+    }
+    
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,32 @@
+package com.can61cebi.foliatimber.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for one structure protection check (placed index and CoreProtect lookups).
+ */
+@Name("foliatimber.ProtectionCheck")
+@Label("Protection Check")
+@Category({"FoliaTimber", "Protection"})
+@Description("Player-placed block check of a tree or block set")
+@StackTrace(false)
+public class ProtectionCheckEvent extends jdk.jfr.Event {
+    
+    @Label("World")
+    public String world;
+    
+    @Label("Positions")
+    @Description("Blocks checked")
+    public int positions;
+    
+    @Label("Queries")
+    @Description("CoreProtect lookups issued (cached verdicts need none)")
+    public int queries;
+    
+    @Label("Verdict")
+    public String verdict;
+}
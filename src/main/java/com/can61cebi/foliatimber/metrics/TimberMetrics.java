@@ -0,0 +1,182 @@
+package com.can61cebi.foliatimber.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Always-on instrumentation of the hot paths: latency per stage and world,
+ * blocks read per scan and how often trees are rejected for each reason.
+ * Safe to record from region threads and async workers at the same time.
+ *
+ * Everything is recorded twice: into the totals, which only ever grow (exported,
+ * scrapers expect monotonic counters), and into the window shown by /timber stats,
+ * which {@link #reset} starts over.
+ */
+public class TimberMetrics {
+    
+    /**
+     * Instrumented stages.
+     */
+    public enum Stage {
+        /** Tree detection (BFS, leaf ownership, treehouse sweep). */
+        SCAN,
+        /** Structure protection checks (placed index, CoreProtect). */
+        PROTECTION,
+        /** Region thread time spent felling one tree (all ticks together). */
+        FELL
+    }
+    
+    private final Stats totals = new Stats();
+    private volatile Stats window = new Stats();
+    private final LongAdder treesFelled = new LongAdder();
+    private final LongAdder blocksBroken = new LongAdder();
+    private final Histogram coreProtectLookups = new Histogram();
+    private final LongAdder coreProtectFailures = new LongAdder();
+    
+    /**
+     * Record how long a stage took.
+     */
+    public void recordLatency(Stage stage, String world, long nanos) {
+        totals.stats(world).latency[stage.ordinal()].record(nanos);
+        window.stats(world).latency[stage.ordinal()].record(nanos);
+    }
+    
+    /**
+     * Record how many blocks a scan read.
+     */
+    public void recordBlocksRead(String world, int blocks) {
+        totals.stats(world).blocksRead.record(blocks);
+        window.stats(world).blocksRead.record(blocks);
+    }
+    
+    /**
+     * Count a rejected tree (scan fail reason or protection result).
+     */
+    public void countReject(String reason) {
+        totals.countReject(reason);
+        window.countReject(reason);
+    }
+    
+    /**
+     * Count a finished felling.
+     */
+    public void recordFelling(int blocks) {
+        treesFelled.increment();
+        blocksBroken.add(blocks);
+    }
+    
+    /**
+     * Record one CoreProtect database lookup.
+     */
+    public void recordCoreProtectLookup(long nanos, boolean failed) {
+        coreProtectLookups.record(nanos);
+        if (failed) {
+            coreProtectFailures.increment();
+        }
+    }
+    
+    /**
+     * Everything recorded since startup (never reset).
+     */
+    public Stats getTotals() {
+        return totals;
+    }
+    
+    /**
+     * Everything recorded since the last {@link #reset}.
+     */
+    public Stats getWindow() {
+        return window;
+    }
+    
+    public long getTreesFelled() {
+        return treesFelled.sum();
+    }
+    
+    public long getBlocksBroken() {
+        return blocksBroken.sum();
+    }
+    
+    public Histogram getCoreProtectLookups() {
+        return coreProtectLookups;
+    }
+    
+    public long getCoreProtectFailures() {
+        return coreProtectFailures.sum();
+    }
+    
+    /**
+     * Start a new /timber stats window. The totals keep counting.
+     */
+    public void reset() {
+        window = new Stats();
+    }
+    
+    /**
+     * Per-world histograms and reject counts collected since a point in time.
+     */
+    public static final class Stats {
+        
+        private final Map<String, WorldStats> worlds = new ConcurrentHashMap<>();
+        private final Map<String, LongAdder> rejects = new ConcurrentHashMap<>();
+        private final long since = System.currentTimeMillis();
+        
+        /**
+         * Latency histogram of a stage in one world, or null if nothing was recorded there.
+         */
+        public Histogram getLatency(Stage stage, String world) {
+            WorldStats stats = worlds.get(world);
+            return stats != null ? stats.latency[stage.ordinal()] : null;
+        }
+        
+        public Histogram getBlocksRead(String world) {
+            WorldStats stats = worlds.get(world);
+            return stats != null ? stats.blocksRead : null;
+        }
+        
+        /**
+         * Worlds with recorded data, sorted by name.
+         */
+        public Iterable<String> getWorlds() {
+            return new TreeMap<>(worlds).keySet();
+        }
+        
+        /**
+         * Reject counts by reason, sorted by reason.
+         */
+        public Map<String, Long> getRejects() {
+            Map<String, Long> counts = new TreeMap<>();
+            rejects.forEach((reason, count) -> counts.put(reason, count.sum()));
+            return counts;
+        }
+        
+        /**
+         * Time (epoch millis) since which data was collected.
+         */
+        public long getSince() {
+            return since;
+        }
+        
+        private void countReject(String reason) {
+            rejects.computeIfAbsent(reason, r -> new LongAdder()).increment();
+        }
+        
+        private WorldStats stats(String world) {
+            WorldStats stats = worlds.get(world);
+            return stats != null ? stats : worlds.computeIfAbsent(world, w -> new WorldStats());
+        }
+    }
+    
+    private static final class WorldStats {
+        final Histogram[] latency = new Histogram[Stage.values().length];
+        final Histogram blocksRead = new Histogram();
+        
+        WorldStats() {
+            for (int i = 0; i < latency.length; i++) {
+                latency[i] = new Histogram();
+            }
+        }
+    }
+}
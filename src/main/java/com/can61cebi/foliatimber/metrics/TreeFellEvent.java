@@ -0,0 +1,34 @@
+package com.can61cebi.foliatimber.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event for one felling. The event duration is wall time from the first to the
+ * last tick (spread felling waits between ticks); work time is what the region thread spent.
+ */
+@Name("foliatimber.TreeFell")
+@Label("Tree Fell")
+@Category({"FoliaTimber", "Tree"})
+@Description("Breaking a tree, delivering drops and damaging the axe")
+@StackTrace(false)
+public class TreeFellEvent extends jdk.jfr.Event {
+    
+    @Label("World")
+    public String world;
+    
+    @Label("Blocks Broken")
+    public int blocksBroken;
+    
+    @Label("Drops")
+    @Description("Items delivered, summed over all stacks")
+    public int drops;
+    
+    @Label("Work Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long workTime;
+}
@@ -0,0 +1,37 @@
+package com.can61cebi.foliatimber.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for one tree scan (BFS, leaf ownership and treehouse sweep).
+ * Costs nothing beyond the allocation the JIT removes unless a recording enables it.
+ */
+@Name("foliatimber.TreeScan")
+@Label("Tree Scan")
+@Category({"FoliaTimber", "Tree"})
+@Description("Tree detection from a broken log")
+@StackTrace(false)
+public class TreeScanEvent extends jdk.jfr.Event {
+    
+    @Label("World")
+    public String world;
+    
+    @Label("Logs")
+    public int logs;
+    
+    @Label("Leaves")
+    public int leaves;
+    
+    @Label("Blocks Read")
+    public int blocksRead;
+    
+    @Label("Natural Tree")
+    public boolean natural;
+    
+    @Label("Fail Reason")
+    public String failReason;
+}
@@ -1,12 +1,18 @@
 package com.can61cebi.foliatimber.protection;
 
 import com.can61cebi.foliatimber.FoliaTimber;
+import com.can61cebi.foliatimber.util.BlockKey;
+import com.can61cebi.foliatimber.util.LongHashSet;
 import net.coreprotect.CoreProtect;
 import net.coreprotect.CoreProtectAPI;
-import org.bukkit.block.Block;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
 import org.bukkit.plugin.Plugin;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Hook for CoreProtect API integration.
@@ -14,6 +20,9 @@ import java.util.List;
  */
 public class CoreProtectHook {
     
+    // CoreProtect lookup action filter: 1 = placed
+    private static final List<Integer> PLACE_ACTIONS = List.of(1);
+    
     private final FoliaTimber plugin;
     private CoreProtectAPI api;
     private boolean enabled = false;
@@ -71,41 +80,60 @@ public class CoreProtectHook {
     }
     
     /**
-     * Check if a block was placed by a player.
+     * Find player-placed blocks among many positions with a single radius lookup.
+     * Covers all columns within {@code radius} blocks (x/z) of the center; only placements
+     * of the given block types are read, so built-up areas don't return every placement around.
      *
-     * @param block       The block to check
-     * @param lookupDays  Number of days to look back
-     * @return true if placed by a player, false otherwise
+     * @param world      The world of the positions
+     * @param centerX    Lookup center X
+     * @param centerZ    Lookup center Z
+     * @param radius     Lookup radius in blocks
+     * @param positions  Packed keys of the positions to check (see {@link BlockKey})
+     * @param materials  Block types to look up placements of
+     * @param lookupDays Number of days to look back
+     * @return Packed keys of positions placed by a player, or null if the lookup failed
      */
-    public boolean isPlayerPlacedBlock(Block block, int lookupDays) {
-        if (!isEnabled()) return false;
+    public LongHashSet findPlayerPlacedBlocks(World world, int centerX, int centerZ, int radius,
+                                              LongHashSet positions, Set<Material> materials, int lookupDays) {
+        LongHashSet placed = new LongHashSet();
+        if (!isEnabled()) return placed;
         
+        long start = System.nanoTime();
         try {
             int lookupSeconds = lookupDays * 24 * 60 * 60;
-            List<String[]> lookup = api.blockLookup(block, lookupSeconds);
+            Location center = new Location(world, centerX, 0, centerZ);
+            // Action 1 = place, only the given blocks, no user filter
+            List<String[]> lookup = api.performLookup(lookupSeconds, null, null, new ArrayList<>(materials), null,
+                    PLACE_ACTIONS, radius, center);
             
             if (lookup == null || lookup.isEmpty()) {
-                return false; // No records = natural block
+                plugin.getMetrics().recordCoreProtectLookup(System.nanoTime() - start, false);
+                return placed; // No records = natural blocks
             }
             
+            String worldName = world.getName();
             for (String[] result : lookup) {
                 CoreProtectAPI.ParseResult parsed = api.parseResult(result);
                 
-                // Action: 0 = break, 1 = place
-                if (parsed.getActionId() == 1) {
-                    String player = parsed.getPlayer();
-                    // Filter non-player sources (#entity, #tnt, etc.)
-                    if (player != null && !player.startsWith("#")) {
-                        return true; // Player placed this block
-                    }
+                if (parsed.getActionId() != 1) continue;
+                String player = parsed.getPlayer();
+                // Filter non-player sources (#entity, #tnt, etc.)
+                if (player == null || player.startsWith("#")) continue;
+                if (!worldName.equals(parsed.worldName())) continue;
+                
+                long key = BlockKey.pack(parsed.getX(), parsed.getY(), parsed.getZ());
+                if (positions.contains(key)) {
+                    placed.add(key);
                 }
             }
         } catch (Exception e) {
-            // On error, fail safe - treat as player placed
+            // Caller fails safe - treats every position as player placed
             plugin.getLogger().fine("CoreProtect lookup hatası: " + e.getMessage());
-            return true;
+            plugin.getMetrics().recordCoreProtectLookup(System.nanoTime() - start, true);
+            return null;
         }
         
-        return false;
+        plugin.getMetrics().recordCoreProtectLookup(System.nanoTime() - start, false);
+        return placed;
     }
 }
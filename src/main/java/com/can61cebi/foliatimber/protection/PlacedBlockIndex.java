@@ -0,0 +1,381 @@
+package com.can61cebi.foliatimber.protection;
+
+import com.can61cebi.foliatimber.FoliaTimber;
+import com.can61cebi.foliatimber.util.BlockKey;
+import com.can61cebi.foliatimber.util.LongHashSet;
+import org.bukkit.World;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory index of player-placed logs and structure blocks.
+ * Fed by block place/break events, so protection works without CoreProtect
+ * and most checks need no database query when CoreProtect is present.
+ *
+ * Positions are stored as one 4096-bit bitset per 16x16x16 chunk section,
+ * grouped by region (32x32 chunks) and persisted as one file per region:
+ * plugins/FoliaTimber/placed/[world]/r.[x].[z].dat
+ *
+ * Region files are loaded lazily on an async thread when a region is first touched;
+ * changes made meanwhile are merged into the loaded data. Clean regions that were
+ * not used for a while are dropped from memory after a save. Unreadable files are
+ * kept next to the region as r.[x].[z].dat.corrupt-[time].
+ */
+public class PlacedBlockIndex {
+    
+    private static final int FILE_VERSION = 1;
+    
+    // 4096 bits per section
+    private static final int SECTION_LONGS = 64;
+    
+    // Clean regions unused for this long are unloaded
+    private static final long REGION_IDLE_NANOS = TimeUnit.MINUTES.toNanos(10);
+    
+    private final FoliaTimber plugin;
+    private final File folder;
+    private final Map<UUID, WorldIndex> worlds = new ConcurrentHashMap<>();
+    
+    // Start blocks of fellings still being checked; their clear waits for the verdict (true = broken meanwhile)
+    private final Map<HeldPosition, Boolean> held = new ConcurrentHashMap<>();
+    
+    public PlacedBlockIndex(FoliaTimber plugin) {
+        this.plugin = plugin;
+        this.folder = new File(plugin.getDataFolder(), "placed");
+    }
+    
+    /**
+     * Record a player-placed block.
+     */
+    public void markPlaced(World world, int x, int y, int z) {
+        update(world, x, y, z, true);
+    }
+    
+    /**
+     * Forget a position (block broken, exploded or replaced by natural growth).
+     * Deferred while the position is held (see {@link #holdClear}).
+     */
+    public void clear(World world, int x, int y, int z) {
+        if (held.replace(new HeldPosition(world.getUID(), BlockKey.pack(x, y, z)), Boolean.TRUE) != null) {
+            return;
+        }
+        clearNow(world, x, y, z);
+    }
+    
+    /**
+     * Keep a position marked until {@link #releaseClear} even if its block breaks meanwhile,
+     * so the protection check of the felling it starts still sees it.
+     */
+    public void holdClear(World world, int x, int y, int z) {
+        held.put(new HeldPosition(world.getUID(), BlockKey.pack(x, y, z)), Boolean.FALSE);
+    }
+    
+    /**
+     * Stop holding a position, applying a clear that was deferred while it was held.
+     */
+    public void releaseClear(World world, int x, int y, int z) {
+        if (Boolean.TRUE.equals(held.remove(new HeldPosition(world.getUID(), BlockKey.pack(x, y, z))))) {
+            clearNow(world, x, y, z);
+        }
+    }
+    
+    private void clearNow(World world, int x, int y, int z) {
+        update(world, x, y, z, false);
+    }
+    
+    private void update(World world, int x, int y, int z, boolean placed) {
+        WorldIndex index = worldIndex(world);
+        int chunkX = x >> 4;
+        int chunkZ = z >> 4;
+        RegionIndex region = region(index, chunkX, chunkZ);
+        // A region unloaded in between refuses the change; replace it instead of waiting for the save
+        while (!region.set(x, y, z, placed)) {
+            index.regions.remove(regionKey(chunkX >> 5, chunkZ >> 5), region);
+            region = region(index, chunkX, chunkZ);
+        }
+    }
+    
+    /**
+     * Find all player-placed positions among the given packed keys (see {@link BlockKey}).
+     * May read region files, so call it off the region threads.
+     */
+    public LongHashSet findPlaced(World world, LongHashSet positions) {
+        LongHashSet placed = new LongHashSet();
+        WorldIndex index = worldIndex(world);
+        positions.forEach(key -> {
+            int x = BlockKey.x(key);
+            int z = BlockKey.z(key);
+            RegionIndex region = region(index, x >> 4, z >> 4);
+            region.ensureLoaded(plugin);
+            if (region.get(x, BlockKey.y(key), z)) {
+                placed.add(key);
+            }
+        });
+        return placed;
+    }
+    
+    /**
+     * Write all changed regions to disk and unload clean regions that were not used recently.
+     */
+    public synchronized void saveAll() {
+        long now = System.nanoTime();
+        for (WorldIndex index : worlds.values()) {
+            for (Map.Entry<Long, RegionIndex> entry : index.regions.entrySet()) {
+                RegionIndex region = entry.getValue();
+                try {
+                    // Changes made before the file was read must not overwrite it
+                    region.ensureLoaded(plugin);
+                    region.save();
+                } catch (IOException e) {
+                    plugin.getLogger().warning("Could not save placed block index " + region.file.getName() + ": " + e.getMessage());
+                }
+                if (region.unloadIfIdle(now)) {
+                    index.regions.remove(entry.getKey(), region);
+                }
+            }
+        }
+    }
+    
+    private WorldIndex worldIndex(World world) {
+        return worlds.computeIfAbsent(world.getUID(), uid -> new WorldIndex(new File(folder, world.getName())));
+    }
+    
+    /**
+     * Get a region, creating it and starting its async load on first use.
+     */
+    private RegionIndex region(WorldIndex index, int chunkX, int chunkZ) {
+        long key = regionKey(chunkX >> 5, chunkZ >> 5);
+        RegionIndex region = index.regions.get(key);
+        if (region != null) return region;
+        
+        RegionIndex created = new RegionIndex(new File(index.directory, "r." + (chunkX >> 5) + "." + (chunkZ >> 5) + ".dat"));
+        region = index.regions.putIfAbsent(key, created);
+        if (region != null) return region;
+        
+        plugin.runAsync(() -> created.ensureLoaded(plugin));
+        return created;
+    }
+    
+    private static long regionKey(int regionX, int regionZ) {
+        return ((long) regionX << 32) | (regionZ & 0xFFFFFFFFL);
+    }
+    
+    /**
+     * A position in a world.
+     */
+    private record HeldPosition(UUID world, long key) {}
+    
+    /**
+     * All regions of one world.
+     */
+    private static final class WorldIndex {
+        
+        private final File directory;
+        private final Map<Long, RegionIndex> regions = new ConcurrentHashMap<>();
+        
+        WorldIndex(File directory) {
+            this.directory = directory;
+        }
+    }
+    
+    /**
+     * Bitsets for one 32x32 chunk region, keyed by (local chunk x, local chunk z, section y).
+     */
+    private static final class RegionIndex {
+        
+        private final File file;
+        private final Map<Integer, long[]> sections = new HashMap<>();
+        // Bits cleared before the file was read, masked out of its contents (null once loaded)
+        private Map<Integer, long[]> clearedBeforeLoad = new HashMap<>();
+        private volatile boolean loaded;
+        private boolean dirty;
+        private boolean unloaded;
+        private volatile long lastUsed = System.nanoTime();
+        
+        RegionIndex(File file) {
+            this.file = file;
+        }
+        
+        private static int sectionKey(int x, int y, int z) {
+            return ((x >> 4) & 31) | (((z >> 4) & 31) << 5) | ((y >> 4) << 10);
+        }
+        
+        private static int bitIndex(int x, int y, int z) {
+            return ((y & 15) << 8) | ((z & 15) << 4) | (x & 15);
+        }
+        
+        synchronized boolean get(int x, int y, int z) {
+            lastUsed = System.nanoTime();
+            long[] bits = sections.get(sectionKey(x, y, z));
+            if (bits == null) return false;
+            int bit = bitIndex(x, y, z);
+            return (bits[bit >>> 6] & (1L << bit)) != 0;
+        }
+        
+        /**
+         * @return false if the region was unloaded and the change must go to a new instance
+         */
+        synchronized boolean set(int x, int y, int z, boolean placed) {
+            if (unloaded) return false;
+            lastUsed = System.nanoTime();
+            int key = sectionKey(x, y, z);
+            int bit = bitIndex(x, y, z);
+            long[] bits = sections.get(key);
+            
+            if (clearedBeforeLoad != null) {
+                long[] cleared = clearedBeforeLoad.computeIfAbsent(key, k -> new long[SECTION_LONGS]);
+                if (placed) {
+                    cleared[bit >>> 6] &= ~(1L << bit);
+                } else {
+                    cleared[bit >>> 6] |= 1L << bit;
+                    dirty = true;
+                }
+            }
+            
+            if (placed) {
+                if (bits == null) {
+                    bits = new long[SECTION_LONGS];
+                    sections.put(key, bits);
+                }
+                bits[bit >>> 6] |= 1L << bit;
+                dirty = true;
+            } else if (bits != null && (bits[bit >>> 6] & (1L << bit)) != 0) {
+                bits[bit >>> 6] &= ~(1L << bit);
+                if (isEmpty(bits)) {
+                    sections.remove(key);
+                }
+                dirty = true;
+            }
+            return true;
+        }
+        
+        /**
+         * Unload the region if it has no unsaved changes and was not used recently.
+         */
+        synchronized boolean unloadIfIdle(long now) {
+            if (dirty || !loaded || now - lastUsed < REGION_IDLE_NANOS) return false;
+            unloaded = true;
+            return true;
+        }
+        
+        private static boolean isEmpty(long[] bits) {
+            for (long word : bits) {
+                if (word != 0) return false;
+            }
+            return true;
+        }
+        
+        /**
+         * Read the region file (if any) and merge it with the changes made so far.
+         * The file is read without holding the lock, so region threads never wait for it.
+         * An unreadable file is moved aside before the region counts as loaded; if that fails too,
+         * the region stays unloaded (and unsaved) so the file is never overwritten.
+         */
+        void ensureLoaded(FoliaTimber plugin) {
+            if (loaded) return;
+            
+            Map<Integer, long[]> stored = Map.of();
+            if (file.exists()) {
+                try {
+                    stored = read(file);
+                } catch (IOException | RuntimeException e) {
+                    File aside = new File(file.getParentFile(), file.getName() + ".corrupt-" + System.currentTimeMillis());
+                    try {
+                        Files.move(file.toPath(), aside.toPath());
+                        plugin.getLogger().warning("Could not load placed block index " + file.getName() + ": " + e.getMessage()
+                                + " (moved to " + aside.getName() + ")");
+                    } catch (NoSuchFileException movedMeanwhile) {
+                        // Another load already moved it aside
+                    } catch (IOException moveError) {
+                        plugin.getLogger().warning("Could not load placed block index " + file.getName() + ": " + e.getMessage()
+                                + " (keeping it unloaded, could not move it aside: " + moveError.getMessage() + ")");
+                        return;
+                    }
+                }
+            }
+            
+            synchronized (this) {
+                if (loaded) return;
+                for (Map.Entry<Integer, long[]> entry : stored.entrySet()) {
+                    long[] bits = entry.getValue();
+                    long[] cleared = clearedBeforeLoad.get(entry.getKey());
+                    long[] current = sections.get(entry.getKey());
+                    for (int i = 0; i < SECTION_LONGS; i++) {
+                        if (cleared != null) bits[i] &= ~cleared[i];
+                        if (current != null) bits[i] |= current[i];
+                    }
+                    if (isEmpty(bits)) {
+                        sections.remove(entry.getKey());
+                    } else {
+                        sections.put(entry.getKey(), bits);
+                    }
+                }
+                clearedBeforeLoad = null;
+                loaded = true;
+            }
+        }
+        
+        private static Map<Integer, long[]> read(File file) throws IOException {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                int version = in.readInt();
+                if (version != FILE_VERSION) {
+                    throw new IOException("Unsupported version " + version);
+                }
+                int count = in.readInt();
+                Map<Integer, long[]> stored = new HashMap<>(count);
+                for (int i = 0; i < count; i++) {
+                    int key = in.readInt();
+                    long[] bits = new long[SECTION_LONGS];
+                    for (int j = 0; j < SECTION_LONGS; j++) {
+                        bits[j] = in.readLong();
+                    }
+                    stored.put(key, bits);
+                }
+                return stored;
+            }
+        }
+        
+        void save() throws IOException {
+            Map<Integer, long[]> copy;
+            synchronized (this) {
+                if (!dirty || !loaded) return;
+                copy = new HashMap<>(sections.size());
+                for (Map.Entry<Integer, long[]> entry : sections.entrySet()) {
+                    copy.put(entry.getKey(), entry.getValue().clone());
+                }
+                dirty = false;
+            }
+            
+            if (copy.isEmpty()) {
+                Files.deleteIfExists(file.toPath());
+                return;
+            }
+            
+            file.getParentFile().mkdirs();
+            File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+                out.writeInt(FILE_VERSION);
+                out.writeInt(copy.size());
+                for (Map.Entry<Integer, long[]> entry : copy.entrySet()) {
+                    out.writeInt(entry.getKey());
+                    for (long word : entry.getValue()) {
+                        out.writeLong(word);
+                    }
+                }
+            } catch (IOException e) {
+                synchronized (this) {
+                    dirty = true;
+                }
+                throw e;
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.can61cebi.foliatimber.protection;
+
+import com.can61cebi.foliatimber.config.ConfigManager;
+import org.bukkit.World;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded LRU cache of CoreProtect placement verdicts per block position.
+ * Entries expire after the configured TTL and are invalidated by block changes,
+ * so neighbouring trees and retried chops don't re-query the same blocks.
+ *
+ * A lookup stamps its positions before querying ({@link #stamp}); a result is only stored
+ * if no change hit the position since, and a "not placed" result only once CoreProtect
+ * has had time to write the last change there.
+ */
+public class PlacementVerdictCache {
+    
+    // Change counters are striped by position; a shared stripe only costs a cache miss
+    private static final int STRIPES = 1024;
+    
+    // CoreProtect writes its queue to the database with a delay
+    private static final long PENDING_WRITE_NANOS = TimeUnit.SECONDS.toNanos(5);
+    
+    private final ConfigManager config;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            return size() > config.getVerdictCacheSize();
+        }
+    };
+    
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    
+    // Per stripe: number of changes, and the time of the last one
+    private final AtomicLongArray changes = new AtomicLongArray(STRIPES);
+    private final AtomicLongArray changedAt = new AtomicLongArray(STRIPES);
+    
+    public PlacementVerdictCache(ConfigManager config) {
+        this.config = config;
+    }
+    
+    /**
+     * Check if caching is enabled (size > 0).
+     */
+    public boolean isEnabled() {
+        return config.getVerdictCacheSize() > 0;
+    }
+    
+    /**
+     * Get a cached verdict.
+     *
+     * @param world    The world
+     * @param blockKey Packed block position
+     * @return true/false if cached, null on a miss or expired entry
+     */
+    public Boolean get(World world, long blockKey) {
+        if (!isEnabled()) return null;
+        
+        Key key = new Key(world.getUID(), blockKey);
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAt - System.nanoTime() > 0) {
+                hits.increment();
+                return entry.playerPlaced;
+            }
+            if (entry != null) {
+                entries.remove(key);
+            }
+        }
+        misses.increment();
+        return null;
+    }
+    
+    /**
+     * Take the change stamp of a position. Call before querying CoreProtect for it.
+     */
+    public long stamp(World world, long blockKey) {
+        return changes.get(stripe(world, blockKey));
+    }
+    
+    /**
+     * Store a verdict from a successful lookup, unless the position changed since {@code stamp}
+     * or a "not placed" answer may predate CoreProtect's write of its last change.
+     */
+    public void put(World world, long blockKey, boolean playerPlaced, long stamp) {
+        if (!isEnabled()) return;
+        
+        int stripe = stripe(world, blockKey);
+        long now = System.nanoTime();
+        long expiresAt = now + TimeUnit.SECONDS.toNanos(config.getVerdictCacheTtl());
+        synchronized (entries) {
+            long count = changes.get(stripe);
+            if (count != stamp) return;
+            if (!playerPlaced && count > 0 && now - changedAt.get(stripe) < PENDING_WRITE_NANOS) return;
+            entries.put(new Key(world.getUID(), blockKey), new Entry(playerPlaced, expiresAt));
+        }
+    }
+    
+    /**
+     * Drop the verdict for a position (block placed, broken or changed).
+     * Lookups already running for it will not store their result.
+     */
+    public void invalidate(World world, long blockKey) {
+        int stripe = stripe(world, blockKey);
+        changedAt.set(stripe, System.nanoTime());
+        changes.incrementAndGet(stripe);
+        synchronized (entries) {
+            if (entries.isEmpty()) return;
+            entries.remove(new Key(world.getUID(), blockKey));
+        }
+    }
+    
+    /**
+     * Drop all verdicts.
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+    
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+    
+    public long getHits() {
+        return hits.sum();
+    }
+    
+    public long getMisses() {
+        return misses.sum();
+    }
+    
+    private static int stripe(World world, long blockKey) {
+        long h = (blockKey ^ world.getUID().getLeastSignificantBits()) * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & (STRIPES - 1);
+    }
+    
+    private record Key(UUID world, long blockKey) {}
+    
+    private record Entry(boolean playerPlaced, long expiresAt) {}
+}
@@ -0,0 +1,87 @@
+package com.can61cebi.foliatimber.protection;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Bounded worker pool for CoreProtect lookups.
+ * The thread count is a global cap on concurrent lookups across all trees,
+ * so a busy forest can't exhaust the CoreProtect database pool.
+ */
+public class ProtectionExecutor {
+    
+    private final ThreadPoolExecutor executor;
+    
+    public ProtectionExecutor(int threads) {
+        int size = Math.max(1, threads);
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory factory = task -> {
+            Thread thread = new Thread(task, "FoliaTimber-Protection-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        this.executor = new ThreadPoolExecutor(size, size, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), factory);
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+    
+    /**
+     * Run tasks in parallel and return the first result accepted by {@code match}.
+     * Remaining tasks are cancelled as soon as a match is found.
+     * This is a BLOCKING call - runs on async thread.
+     *
+     * @param tasks   Independent lookups
+     * @param match   Which results end the search
+     * @param noMatch Returned if no task produced a matching result
+     * @return The first matching result (in completion order), or {@code noMatch}
+     * @throws IllegalStateException if a task failed or the caller was interrupted
+     */
+    public <T> T firstMatch(List<Callable<T>> tasks, Predicate<T> match, T noMatch) {
+        if (tasks.isEmpty()) {
+            return noMatch;
+        }
+        
+        ExecutorCompletionService<T> completion = new ExecutorCompletionService<>(executor);
+        List<Future<T>> futures = new ArrayList<>(tasks.size());
+        try {
+            for (Callable<T> task : tasks) {
+                futures.add(completion.submit(task));
+            }
+            
+            for (int i = 0; i < futures.size(); i++) {
+                T result = completion.take().get();
+                if (match.test(result)) {
+                    return result;
+                }
+            }
+            return noMatch;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Protection lookup interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Protection lookup failed", e.getCause());
+        } finally {
+            // Drops queued lookups; running ones finish (not interrupted mid-query) and are ignored
+            for (Future<T> future : futures) {
+                future.cancel(false);
+            }
+        }
+    }
+    
+    /**
+     * Stop all workers (plugin disable).
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,19 @@
+package com.can61cebi.foliatimber.protection;
+
+/**
+ * Outcome of the structure protection checks for a whole tree.
+ */
+public enum ProtectionResult {
+    /** No player-placed blocks found, the tree may be chopped */
+    CLEAR,
+    /** The block the player broke was placed by a player */
+    START_BLOCK_PLACED,
+    /** Some logs of the tree were placed by a player */
+    LOGS_PLACED,
+    /** Player-placed structure blocks are attached to the tree */
+    TREEHOUSE;
+
+    public boolean isProtected() {
+        return this != CLEAR;
+    }
+}
@@ -0,0 +1,17 @@
+package com.can61cebi.foliatimber.protection;
+
+/**
+ * Outcome of the WorldGuard check for the blocks of a felling.
+ */
+public enum RegionVerdict {
+    /** The player may build everywhere the felling breaks blocks */
+    ALLOW,
+    /** Some block lies in a region the player can't build in */
+    NO_BUILD,
+    /** Some block lies in a region with the timber flag set to deny */
+    NO_TIMBER;
+
+    public boolean isAllowed() {
+        return this == ALLOW;
+    }
+}
@@ -0,0 +1,99 @@
+package com.can61cebi.foliatimber.protection;
+
+import com.can61cebi.foliatimber.config.ConfigManager;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WorldGuard verdicts per player and chunk.
+ * Only chunks where every region covers the whole chunk column are cached (the verdict
+ * is the same for any block in them). Entries expire after the configured TTL and are
+ * dropped when regions may have changed (region commands, reload) or the player quits.
+ * WorldGuard applies region commands asynchronously, so after one nothing is cached
+ * until the change has had time to land.
+ */
+public class RegionVerdictCache {
+    
+    // Upper bound on entries; expired entries are pruned first, then everything
+    private static final int MAX_ENTRIES = 8192;
+    
+    private final ConfigManager config;
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    
+    // Nothing is cached before this time (System.nanoTime)
+    private volatile long pausedUntil = System.nanoTime();
+    
+    public RegionVerdictCache(ConfigManager config) {
+        this.config = config;
+    }
+    
+    public boolean isEnabled() {
+        return config.getWorldGuardCacheTtl() > 0;
+    }
+    
+    /**
+     * Get a cached verdict.
+     *
+     * @return The verdict, or null on a miss or expired entry
+     */
+    public RegionVerdict get(UUID player, UUID world, long chunkKey) {
+        if (!isEnabled()) return null;
+        
+        Key key = new Key(player, world, chunkKey);
+        Entry entry = entries.get(key);
+        if (entry == null) return null;
+        if (entry.expiresAt - System.nanoTime() <= 0) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.verdict;
+    }
+    
+    public void put(UUID player, UUID world, long chunkKey, RegionVerdict verdict) {
+        if (!isEnabled()) return;
+        
+        long now = System.nanoTime();
+        if (now - pausedUntil < 0) return;
+        if (entries.size() >= MAX_ENTRIES) {
+            entries.values().removeIf(entry -> entry.expiresAt - now <= 0);
+            if (entries.size() >= MAX_ENTRIES) {
+                entries.clear();
+            }
+        }
+        long expiresAt = now + TimeUnit.SECONDS.toNanos(config.getWorldGuardCacheTtl());
+        entries.put(new Key(player, world, chunkKey), new Entry(verdict, expiresAt));
+    }
+    
+    /**
+     * Drop all verdicts of a player (quit).
+     */
+    public void invalidatePlayer(UUID player) {
+        entries.keySet().removeIf(key -> key.player.equals(player));
+    }
+    
+    /**
+     * Drop everything (regions, flags or members may have changed).
+     */
+    public void clear() {
+        entries.clear();
+    }
+    
+    /**
+     * Drop everything and cache nothing for a while (a region change is on its way).
+     */
+    public void clearAndPause(long nanos) {
+        pausedUntil = System.nanoTime() + nanos;
+        entries.clear();
+    }
+    
+    public int size() {
+        return entries.size();
+    }
+    
+    private record Key(UUID player, UUID world, long chunkKey) {}
+    
+    private record Entry(RegionVerdict verdict, long expiresAt) {}
+}
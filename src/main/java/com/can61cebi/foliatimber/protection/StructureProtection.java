@@ -2,138 +2,280 @@ package com.can61cebi.foliatimber.protection;
 
 import com.can61cebi.foliatimber.FoliaTimber;
 import com.can61cebi.foliatimber.config.ConfigManager;
+import com.can61cebi.foliatimber.metrics.ProtectionCheckEvent;
+import com.can61cebi.foliatimber.metrics.TimberMetrics;
+import com.can61cebi.foliatimber.tree.TreeData;
+import com.can61cebi.foliatimber.util.BlockKey;
+import com.can61cebi.foliatimber.util.LongHashSet;
+import com.can61cebi.foliatimber.util.MaterialUtil;
 import org.bukkit.Material;
+import org.bukkit.World;
 import org.bukkit.block.Block;
 
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Main structure protection service.
- * Combines CoreProtect checks with treehouse detection.
+ * Combines the placed block index and (cached) CoreProtect checks with treehouse detection.
  */
 public class StructureProtection {
     
     private final FoliaTimber plugin;
     private final ConfigManager config;
     private final CoreProtectHook coreProtect;
+    private final PlacedBlockIndex placedBlocks;
+    private final PlacementVerdictCache verdictCache;
+    private final ProtectionExecutor lookupExecutor;
     
-    // Block types that indicate a treehouse/structure when player-placed
-    public static final Set<Material> STRUCTURE_BLOCKS = Set.of(
-        // Planks
-        Material.OAK_PLANKS, Material.SPRUCE_PLANKS, Material.BIRCH_PLANKS,
-        Material.JUNGLE_PLANKS, Material.ACACIA_PLANKS, Material.DARK_OAK_PLANKS,
-        Material.MANGROVE_PLANKS, Material.CHERRY_PLANKS, Material.BAMBOO_PLANKS,
-        Material.CRIMSON_PLANKS, Material.WARPED_PLANKS,
-        // Slabs
-        Material.OAK_SLAB, Material.SPRUCE_SLAB, Material.BIRCH_SLAB,
-        Material.JUNGLE_SLAB, Material.ACACIA_SLAB, Material.DARK_OAK_SLAB,
-        // Stairs
-        Material.OAK_STAIRS, Material.SPRUCE_STAIRS, Material.BIRCH_STAIRS,
-        Material.JUNGLE_STAIRS, Material.ACACIA_STAIRS, Material.DARK_OAK_STAIRS,
-        // Fences
-        Material.OAK_FENCE, Material.SPRUCE_FENCE, Material.BIRCH_FENCE,
-        Material.JUNGLE_FENCE, Material.ACACIA_FENCE, Material.DARK_OAK_FENCE,
-        // Ladders and torches
-        Material.LADDER, Material.TORCH, Material.WALL_TORCH,
-        // Glass
-        Material.GLASS, Material.GLASS_PANE,
-        // Doors and trapdoors
-        Material.OAK_DOOR, Material.SPRUCE_DOOR, Material.OAK_TRAPDOOR,
-        // Chests and crafting
-        Material.CHEST, Material.CRAFTING_TABLE, Material.FURNACE,
-        // Beds
-        Material.RED_BED, Material.WHITE_BED, Material.BLUE_BED,
-        // Wool and carpets (any color)
-        Material.WHITE_WOOL, Material.WHITE_CARPET
-    );
-    
-    public StructureProtection(FoliaTimber plugin, CoreProtectHook coreProtect) {
+    // Positions spanning at most this many blocks (x and z) are checked with a single lookup
+    private static final int MAX_SINGLE_LOOKUP_SPAN = 33;
+    
+    public StructureProtection(FoliaTimber plugin, CoreProtectHook coreProtect, PlacedBlockIndex placedBlocks,
+                               PlacementVerdictCache verdictCache) {
         this.plugin = plugin;
         this.config = plugin.getConfigManager();
         this.coreProtect = coreProtect;
+        this.placedBlocks = placedBlocks;
+        this.verdictCache = verdictCache;
+        this.lookupExecutor = new ProtectionExecutor(config.getProtectionLookupThreads());
+    }
+    
+    /**
+     * Stop the lookup workers (plugin disable).
+     */
+    public void shutdown() {
+        lookupExecutor.shutdown();
     }
     
     /**
-     * Check if a single block was placed by a player.
+     * Check if any placement source (local index or CoreProtect) is available.
+     */
+    public boolean isActive() {
+        return config.usePlacedBlockIndex() || useCoreProtect();
+    }
+    
+    private boolean useCoreProtect() {
+        return config.useCoreProtect() && coreProtect.isEnabled();
+    }
+    
+    /**
+     * Check a whole tree (start block, logs and treehouse candidates).
+     * The local placed block index is consulted first; CoreProtect covers older history
+     * with batched lookups: one query for the tree's bounding box, or one per chunk for
+     * wide trees. Chunk batches run in parallel on the lookup executor; the first batch
+     * containing a player-placed block decides and cancels the rest.
      * This is a BLOCKING call - runs on async thread.
+     *
+     * @param startBlock The block the player broke
+     * @param treeData   Scan results (structure blocks were collected on the region thread)
+     * @return The protection verdict for the tree
      */
-    public boolean isPlayerPlacedBlock(Block block) {
-        if (!config.useCoreProtect() || !coreProtect.isEnabled()) {
-            return false;
+    public ProtectionResult checkTree(Block startBlock, TreeData treeData) {
+        ProtectionCheckEvent event = new ProtectionCheckEvent();
+        event.begin();
+        long start = System.nanoTime();
+        AtomicInteger queries = new AtomicInteger();
+        ProtectionResult result = evaluateTree(startBlock, treeData, queries);
+        recordLatency(startBlock.getWorld(), start);
+        if (result.isProtected()) {
+            plugin.getMetrics().countReject(result.name());
+        }
+        int positions = 1 + treeData.logs().size() + treeData.potentialStructureBlocks().size();
+        commit(event, startBlock.getWorld(), positions, queries, result.name());
+        return result;
+    }
+    
+    private ProtectionResult evaluateTree(Block startBlock, TreeData treeData, AtomicInteger queries) {
+        if (!isActive()) {
+            return ProtectionResult.CLEAR;
+        }
+        
+        long startKey = BlockKey.pack(startBlock.getX(), startBlock.getY(), startBlock.getZ());
+        LongHashSet logKeys = toKeys(treeData.logs());
+        LongHashSet structureKeys = config.checkTreehouse()
+                ? toKeys(treeData.potentialStructureBlocks().keySet())
+                : new LongHashSet();
+        
+        LongHashSet positions = new LongHashSet(logKeys.size() + structureKeys.size() + 1);
+        positions.add(startKey);
+        logKeys.forEach(positions::add);
+        structureKeys.forEach(positions::add);
+        
+        World world = startBlock.getWorld();
+        
+        // 1. Local index (no database query)
+        if (config.usePlacedBlockIndex()) {
+            ProtectionResult result = classify(placedBlocks.findPlaced(world, positions), startKey, logKeys, structureKeys);
+            if (result.isProtected()) {
+                return result;
+            }
         }
         
-        return coreProtect.isPlayerPlacedBlock(block, config.getCoreProtectLookupDays());
+        // 2. CoreProtect history (also covers blocks placed before the index existed)
+        if (!useCoreProtect()) {
+            return ProtectionResult.CLEAR;
+        }
+        
+        // Only placements of what stands there now matter: any log, or the structure block types found
+        Set<Material> materials = EnumSet.copyOf(MaterialUtil.LOG_MATERIALS);
+        if (!structureKeys.isEmpty()) {
+            materials.addAll(treeData.potentialStructureBlocks().values());
+        }
+        
+        int lookupDays = config.getCoreProtectLookupDays();
+        List<Callable<ProtectionResult>> lookups = new ArrayList<>();
+        for (LookupBatch batch : planBatches(positions, startKey)) {
+            lookups.add(() -> classify(lookupBatch(world, batch, materials, lookupDays, queries), startKey, logKeys, structureKeys));
+        }
+        
+        return lookupExecutor.firstMatch(lookups, ProtectionResult::isProtected, ProtectionResult.CLEAR);
     }
     
     /**
-     * Check if any block in a set was placed by a player.
+     * Turn a set of player-placed positions into a verdict (start block first, then logs, then treehouse).
      */
-    public boolean anyBlockPlacedByPlayer(Set<Block> blocks) {
-        if (!config.useCoreProtect() || !coreProtect.isEnabled()) {
-            return false;
+    private static ProtectionResult classify(LongHashSet placed, long startKey, LongHashSet logKeys, LongHashSet structureKeys) {
+        if (placed.isEmpty()) {
+            return ProtectionResult.CLEAR;
         }
-        
-        for (Block block : blocks) {
-            if (isPlayerPlacedBlock(block)) {
-                return true;
-            }
+        if (placed.contains(startKey)) {
+            return ProtectionResult.START_BLOCK_PLACED;
+        }
+        if (containsAny(logKeys, placed)) {
+            return ProtectionResult.LOGS_PLACED;
+        }
+        if (containsAny(structureKeys, placed)) {
+            return ProtectionResult.TREEHOUSE;
+        }
+        return ProtectionResult.CLEAR;
+    }
+    
+    private void recordLatency(World world, long start) {
+        plugin.getMetrics().recordLatency(TimberMetrics.Stage.PROTECTION, world.getName(), System.nanoTime() - start);
+    }
+    
+    private static void commit(ProtectionCheckEvent event, World world, int positions, AtomicInteger queries, String verdict) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.world = world.getName();
+            event.positions = positions;
+            event.queries = queries.get();
+            event.verdict = verdict;
+            event.commit();
         }
-        return false;
     }
     
     /**
-     * Check if tree has a treehouse (player-placed structure blocks attached).
-     * Uses pre-collected structure blocks from TreeData to avoid async block access.
+     * Find player-placed positions of one batch, answering from cached verdicts where possible.
+     * Only positions without a cached verdict are queried; a cached hit skips the query.
+     * If the lookup fails, all queried positions count as player placed (fail safe, not cached).
      *
-     * @param potentialStructureBlocks Map of blocks to their materials (collected on region thread)
-     * @return true if treehouse detected, false otherwise
+     * @param materials Block types to look up placements of
+     * @param queries   Incremented when CoreProtect is actually queried
      */
-    public boolean hasTreehouse(Map<Block, Material> potentialStructureBlocks) {
-        if (!config.checkTreehouse()) {
-            return false;
+    private LongHashSet lookupBatch(World world, LookupBatch batch, Set<Material> materials, int lookupDays,
+                                    AtomicInteger queries) {
+        LongHashSet placed = new LongHashSet();
+        LongHashSet unknown = new LongHashSet(batch.positions().size());
+        batch.positions().forEach(key -> {
+            Boolean cached = verdictCache.get(world, key);
+            if (cached == null) {
+                unknown.add(key);
+            } else if (cached) {
+                placed.add(key);
+            }
+        });
+        
+        if (!placed.isEmpty() || unknown.isEmpty()) {
+            return placed;
         }
-
-        if (!config.useCoreProtect() || !coreProtect.isEnabled()) {
-            return false;
+        
+        // Stamp before querying, so changes landing during the lookup keep its result out of the cache
+        long[] keys = unknown.toArray();
+        long[] stamps = new long[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            stamps[i] = verdictCache.stamp(world, keys[i]);
         }
-
-        if (potentialStructureBlocks.isEmpty()) {
-            return false;
+        
+        queries.incrementAndGet();
+        LongHashSet found = coreProtect.findPlayerPlacedBlocks(world, batch.centerX(), batch.centerZ(),
+                batch.radius(), unknown, materials, lookupDays);
+        if (found == null) {
+            return unknown;
         }
-
-        // Check if any of the pre-collected structure blocks were player-placed
-        for (Block block : potentialStructureBlocks.keySet()) {
-            if (isPlayerPlacedBlock(block)) {
-                return true;
-            }
+        
+        for (int i = 0; i < keys.length; i++) {
+            verdictCache.put(world, keys[i], found.contains(keys[i]), stamps[i]);
         }
-
-        return false;
+        return found;
     }
     
     /**
-     * Check if a material is a typical structure/building block.
+     * Split positions into radius lookups: one for the bounding box if it is small enough,
+     * otherwise one per chunk column. The batch containing {@code firstKey} comes first.
      */
-    private boolean isStructureBlock(Material material) {
-        // Check explicit list
-        if (STRUCTURE_BLOCKS.contains(material)) {
-            return true;
+    private List<LookupBatch> planBatches(LongHashSet positions, long firstKey) {
+        int minX = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+        for (long key : positions.toArray()) {
+            minX = Math.min(minX, BlockKey.x(key));
+            minZ = Math.min(minZ, BlockKey.z(key));
+            maxX = Math.max(maxX, BlockKey.x(key));
+            maxZ = Math.max(maxZ, BlockKey.z(key));
+        }
+        
+        if (maxX - minX < MAX_SINGLE_LOOKUP_SPAN && maxZ - minZ < MAX_SINGLE_LOOKUP_SPAN) {
+            int centerX = (minX + maxX) >> 1;
+            int centerZ = (minZ + maxZ) >> 1;
+            int radius = Math.max(Math.max(maxX - centerX, centerX - minX), Math.max(maxZ - centerZ, centerZ - minZ));
+            return List.of(new LookupBatch(centerX, centerZ, Math.max(1, radius), positions));
         }
         
-        // Check by name patterns
-        String name = material.name();
-        return name.contains("PLANK") ||
-               name.contains("SLAB") ||
-               name.contains("STAIR") ||
-               name.contains("FENCE") ||
-               name.contains("DOOR") ||
-               name.contains("TRAPDOOR") ||
-               name.contains("WOOL") ||
-               name.contains("CARPET") ||
-               name.contains("BED") ||
-               name.contains("GLASS") ||
-               name.contains("SIGN") ||
-               name.contains("BANNER");
+        // One lookup per chunk column (center of the chunk, radius 8 covers all 16x16 columns)
+        Map<Long, LongHashSet> byChunk = new LinkedHashMap<>();
+        if (firstKey != BlockKey.INVALID) {
+            byChunk.put(chunkKey(firstKey), new LongHashSet());
+        }
+        positions.forEach(key -> byChunk.computeIfAbsent(chunkKey(key), k -> new LongHashSet()).add(key));
+        
+        List<LookupBatch> batches = new ArrayList<>(byChunk.size());
+        for (Map.Entry<Long, LongHashSet> entry : byChunk.entrySet()) {
+            int chunkX = (int) (entry.getKey() >> 32);
+            int chunkZ = (int) (long) entry.getKey();
+            batches.add(new LookupBatch((chunkX << 4) + 8, (chunkZ << 4) + 8, 8, entry.getValue()));
+        }
+        return batches;
+    }
+    
+    private static long chunkKey(long blockKey) {
+        return ((long) (BlockKey.x(blockKey) >> 4) << 32) | ((BlockKey.z(blockKey) >> 4) & 0xFFFFFFFFL);
+    }
+    
+    private static LongHashSet toKeys(Set<Block> blocks) {
+        LongHashSet keys = new LongHashSet(blocks.size());
+        for (Block block : blocks) {
+            keys.add(BlockKey.pack(block.getX(), block.getY(), block.getZ()));
+        }
+        return keys;
+    }
+    
+    private static boolean containsAny(LongHashSet set, LongHashSet keys) {
+        // keys is the (small) lookup result
+        for (long key : keys.toArray()) {
+            if (set.contains(key)) return true;
+        }
+        return false;
     }
+    
+    /**
+     * One CoreProtect radius lookup covering a group of positions.
+     */
+    private record LookupBatch(int centerX, int centerZ, int radius, LongHashSet positions) {}
 }
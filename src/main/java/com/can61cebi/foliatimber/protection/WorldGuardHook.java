@@ -1,30 +1,86 @@
 package com.can61cebi.foliatimber.protection;
 
 import com.can61cebi.foliatimber.FoliaTimber;
+import com.can61cebi.foliatimber.util.BlockKey;
 import com.sk89q.worldedit.bukkit.BukkitAdapter;
+import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldguard.LocalPlayer;
 import com.sk89q.worldguard.WorldGuard;
 import com.sk89q.worldguard.bukkit.WorldGuardPlugin;
+import com.sk89q.worldguard.protection.ApplicableRegionSet;
+import com.sk89q.worldguard.protection.RegionResultSet;
+import com.sk89q.worldguard.protection.flags.Flag;
+import com.sk89q.worldguard.protection.flags.Flags;
+import com.sk89q.worldguard.protection.flags.StateFlag;
+import com.sk89q.worldguard.protection.flags.registry.FlagConflictException;
+import com.sk89q.worldguard.protection.flags.registry.FlagRegistry;
+import com.sk89q.worldguard.protection.managers.RegionManager;
+import com.sk89q.worldguard.protection.regions.ProtectedCuboidRegion;
+import com.sk89q.worldguard.protection.regions.ProtectedRegion;
 import com.sk89q.worldguard.protection.regions.RegionContainer;
 import com.sk89q.worldguard.protection.regions.RegionQuery;
+import com.sk89q.worldguard.protection.regions.RegionType;
+import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.Plugin;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 /**
  * Hook for WorldGuard API integration.
- * Provides region permission checking.
+ * Provides region permission checking and the custom {@code timber} region flag.
  */
 public class WorldGuardHook {
     
+    /** Region flag to turn tree felling off in a region ({@code /rg flag <region> timber deny}). */
+    public static final String TIMBER_FLAG_NAME = "timber";
+    
+    // Id of the temporary region used to look up the regions around a tree
+    private static final String QUERY_REGION_ID = "__foliatimber_query__";
+    
+    // Registered in onLoad, before WorldGuard locks its flag registry (null if that failed)
+    private static volatile StateFlag timberFlag;
+    
     private final FoliaTimber plugin;
+    private final RegionVerdictCache verdictCache;
     private boolean enabled = false;
     
     public WorldGuardHook(FoliaTimber plugin) {
         this.plugin = plugin;
+        this.verdictCache = new RegionVerdictCache(plugin.getConfigManager());
         initialize();
     }
     
+    /**
+     * Register the {@code timber} flag. Must run in onLoad, and only if WorldGuard is installed.
+     * If another plugin already registered a state flag with that name, it is shared.
+     */
+    public static void registerFlags(FoliaTimber plugin) {
+        try {
+            FlagRegistry registry = WorldGuard.getInstance().getFlagRegistry();
+            StateFlag flag = new StateFlag(TIMBER_FLAG_NAME, true);
+            try {
+                registry.register(flag);
+                timberFlag = flag;
+            } catch (FlagConflictException e) {
+                Flag<?> existing = registry.get(TIMBER_FLAG_NAME);
+                if (existing instanceof StateFlag stateFlag) {
+                    timberFlag = stateFlag;
+                } else {
+                    plugin.getLogger().warning("WorldGuard '" + TIMBER_FLAG_NAME + "' bayrağı başka bir eklentide farklı türde kayıtlı");
+                }
+            }
+        } catch (Exception | LinkageError e) {
+            plugin.getLogger().warning("WorldGuard '" + TIMBER_FLAG_NAME + "' bayrağı kaydedilemedi: " + e.getMessage());
+        }
+    }
+    
     /**
      * Initialize WorldGuard API connection.
      */
@@ -53,6 +109,13 @@ public class WorldGuardHook {
         return enabled;
     }
     
+    /**
+     * Get the per-player, per-chunk verdict cache.
+     */
+    public RegionVerdictCache getVerdictCache() {
+        return verdictCache;
+    }
+    
     /**
      * Check if a player can chop a tree at the given block location.
      *
@@ -103,14 +166,151 @@ public class WorldGuardHook {
      * @param blocks The blocks to check
      * @return true if all blocks are allowed, false if any are protected
      */
-    public boolean canChopAllBlocks(Player player, Iterable<Block> blocks) {
-        if (!isEnabled()) return true;
+    public boolean canChopAllBlocks(Player player, Collection<Block> blocks) {
+        return checkBlocks(player, blocks).isAllowed();
+    }
+    
+    /**
+     * Check all blocks a felling would break in one pass.
+     * The regions intersecting the chunk columns of the blocks are looked up once; chunks
+     * lying entirely inside the same regions are answered (and cached) per chunk, others per
+     * distinct set of regions containing a block. Build permission and the timber flag are
+     * resolved from the same region set. Must be called on the region thread owning the blocks.
+     *
+     * @param player The player
+     * @param blocks The blocks the felling would break (all in one world)
+     * @return The first denying verdict, or ALLOW
+     */
+    public RegionVerdict checkBlocks(Player player, Collection<Block> blocks) {
+        if (!isEnabled() || blocks.isEmpty()) {
+            return RegionVerdict.ALLOW;
+        }
         
-        for (Block block : blocks) {
-            if (!canChopTree(player, block)) {
-                return false;
+        try {
+            World world = blocks.iterator().next().getWorld();
+            com.sk89q.worldedit.world.World weWorld = BukkitAdapter.adapt(world);
+            RegionManager manager = WorldGuard.getInstance().getPlatform().getRegionContainer().get(weWorld);
+            if (manager == null) {
+                // Region protection is disabled in this world
+                return RegionVerdict.ALLOW;
             }
+            
+            LocalPlayer localPlayer = WorldGuardPlugin.inst().wrapPlayer(player);
+            if (WorldGuard.getInstance().getPlatform().getSessionManager().hasBypass(localPlayer, weWorld)) {
+                return RegionVerdict.ALLOW;
+            }
+            
+            // Group blocks by chunk; cached chunks need no region lookup
+            Map<Long, List<Block>> uncached = new HashMap<>();
+            for (Block block : blocks) {
+                long chunkKey = BlockKey.pack(block.getX() >> 4, 0, block.getZ() >> 4);
+                List<Block> chunkBlocks = uncached.get(chunkKey);
+                if (chunkBlocks == null) {
+                    RegionVerdict cached = verdictCache.get(player.getUniqueId(), world.getUID(), chunkKey);
+                    if (cached != null) {
+                        if (!cached.isAllowed()) return cached;
+                        continue;
+                    }
+                    chunkBlocks = new ArrayList<>();
+                    uncached.put(chunkKey, chunkBlocks);
+                }
+                chunkBlocks.add(block);
+            }
+            if (uncached.isEmpty()) {
+                return RegionVerdict.ALLOW;
+            }
+            
+            // One lookup for all chunk columns the remaining blocks are in
+            int minChunkX = Integer.MAX_VALUE, minChunkZ = Integer.MAX_VALUE;
+            int maxChunkX = Integer.MIN_VALUE, maxChunkZ = Integer.MIN_VALUE;
+            for (long chunkKey : uncached.keySet()) {
+                minChunkX = Math.min(minChunkX, BlockKey.x(chunkKey));
+                minChunkZ = Math.min(minChunkZ, BlockKey.z(chunkKey));
+                maxChunkX = Math.max(maxChunkX, BlockKey.x(chunkKey));
+                maxChunkZ = Math.max(maxChunkZ, BlockKey.z(chunkKey));
+            }
+            int minY = world.getMinHeight();
+            int maxY = world.getMaxHeight() - 1;
+            ProtectedRegion area = new ProtectedCuboidRegion(QUERY_REGION_ID, true,
+                    BlockVector3.at(minChunkX << 4, minY, minChunkZ << 4),
+                    BlockVector3.at((maxChunkX << 4) + 15, maxY, (maxChunkZ << 4) + 15));
+            Set<ProtectedRegion> nearby = manager.getApplicableRegions(area).getRegions();
+            ProtectedRegion global = manager.getRegion(ProtectedRegion.GLOBAL_REGION);
+            
+            Map<List<ProtectedRegion>, RegionVerdict> verdicts = new HashMap<>();
+            for (Map.Entry<Long, List<Block>> entry : uncached.entrySet()) {
+                int chunkX = BlockKey.x(entry.getKey()) << 4;
+                int chunkZ = BlockKey.z(entry.getKey()) << 4;
+                
+                List<ProtectedRegion> column = new ArrayList<>();
+                boolean uniform = true;
+                for (ProtectedRegion region : nearby) {
+                    if (region.getType() == RegionType.GLOBAL || !touchesColumn(region, chunkX, chunkZ)) continue;
+                    column.add(region);
+                    uniform &= coversColumn(region, chunkX, chunkZ, minY, maxY);
+                }
+                
+                if (uniform) {
+                    // Every block of the chunk is in exactly these regions
+                    RegionVerdict verdict = verdicts.computeIfAbsent(column, regions -> evaluate(regions, global, localPlayer));
+                    verdictCache.put(player.getUniqueId(), world.getUID(), entry.getKey(), verdict);
+                    if (!verdict.isAllowed()) return verdict;
+                    continue;
+                }
+                
+                // A region border runs through this chunk: decide per distinct set of regions
+                for (Block block : entry.getValue()) {
+                    List<ProtectedRegion> applicable = new ArrayList<>(column.size());
+                    for (ProtectedRegion region : column) {
+                        if (region.contains(block.getX(), block.getY(), block.getZ())) {
+                            applicable.add(region);
+                        }
+                    }
+                    RegionVerdict verdict = verdicts.computeIfAbsent(applicable, regions -> evaluate(regions, global, localPlayer));
+                    if (!verdict.isAllowed()) return verdict;
+                }
+            }
+            return RegionVerdict.ALLOW;
+            
+        } catch (Exception e) {
+            plugin.getLogger().warning("WorldGuard check error: " + e.getClass().getSimpleName() + " - " + e.getMessage());
+            // On error, allow to prevent blocking legitimate use
+            return RegionVerdict.ALLOW;
         }
-        return true;
+    }
+    
+    /**
+     * Resolve build permission and the timber flag for blocks inside exactly these regions.
+     */
+    private static RegionVerdict evaluate(List<ProtectedRegion> regions, ProtectedRegion global, LocalPlayer player) {
+        // The result set sorts its list, so hand it a copy (the original is a map key)
+        ApplicableRegionSet set = new RegionResultSet(new ArrayList<>(regions), global);
+        if (!set.testState(player, Flags.BUILD)) {
+            return RegionVerdict.NO_BUILD;
+        }
+        StateFlag flag = timberFlag;
+        if (flag != null && set.queryState(player, flag) == StateFlag.State.DENY) {
+            return RegionVerdict.NO_TIMBER;
+        }
+        return RegionVerdict.ALLOW;
+    }
+    
+    private static boolean touchesColumn(ProtectedRegion region, int chunkX, int chunkZ) {
+        BlockVector3 min = region.getMinimumPoint();
+        BlockVector3 max = region.getMaximumPoint();
+        return max.getBlockX() >= chunkX && min.getBlockX() <= chunkX + 15
+                && max.getBlockZ() >= chunkZ && min.getBlockZ() <= chunkZ + 15;
+    }
+    
+    /**
+     * Check if a region contains the whole chunk column (only decidable for cuboids).
+     */
+    private static boolean coversColumn(ProtectedRegion region, int chunkX, int chunkZ, int minY, int maxY) {
+        if (region.getType() != RegionType.CUBOID) return false;
+        BlockVector3 min = region.getMinimumPoint();
+        BlockVector3 max = region.getMaximumPoint();
+        return min.getBlockX() <= chunkX && max.getBlockX() >= chunkX + 15
+                && min.getBlockZ() <= chunkZ && max.getBlockZ() >= chunkZ + 15
+                && min.getBlockY() <= minY && max.getBlockY() >= maxY;
     }
 }
@@ -5,6 +5,8 @@ import com.tcoded.folialib.FoliaLib;
 import org.bukkit.Location;
 import org.bukkit.entity.Entity;
 
+import java.util.function.BooleanSupplier;
+
 /**
  * Wrapper for FoliaLib scheduler providing cleaner API access.
  * Abstracts away Folia/Paper differences.
@@ -33,6 +35,20 @@ public class FoliaSchedulerWrapper {
         return foliaLib.isFolia();
     }
     
+    /**
+     * Check if the current thread owns the region of a location (always the main thread on Paper).
+     */
+    public boolean isOwnedByCurrentRegion(Location location) {
+        return foliaLib.getScheduler().isOwnedByCurrentRegion(location);
+    }
+    
+    /**
+     * Check if the current thread owns an entity.
+     */
+    public boolean isOwnedByCurrentRegion(Entity entity) {
+        return foliaLib.getScheduler().isOwnedByCurrentRegion(entity);
+    }
+    
     /**
      * Run a task at a specific location (region-safe).
      */
@@ -54,6 +70,14 @@ public class FoliaSchedulerWrapper {
         foliaLib.getScheduler().runAtEntity(entity, t -> task.run());
     }
     
+    /**
+     * Run a task for a specific entity, or the fallback if the entity is removed first
+     * (e.g. the player logged out).
+     */
+    public void runAtEntityWithFallback(Entity entity, Runnable task, Runnable fallback) {
+        foliaLib.getScheduler().runAtEntityWithFallback(entity, t -> task.run(), fallback);
+    }
+    
     /**
      * Run a task for a specific entity after a delay.
      */
@@ -78,6 +102,24 @@ public class FoliaSchedulerWrapper {
         }, delayTicks);
     }
     
+    /**
+     * Run an async task repeatedly (for periodic file operations).
+     */
+    public void runAsyncTimer(Runnable task, long delayTicks, long periodTicks) {
+        foliaLib.getScheduler().runTimerAsync(t -> task.run(), delayTicks, periodTicks);
+    }
+    
+    /**
+     * Run an async task repeatedly until it returns false.
+     */
+    public void runAsyncTimerWhile(BooleanSupplier task, long delayTicks, long periodTicks) {
+        foliaLib.getScheduler().runTimerAsync(t -> {
+            if (!task.getAsBoolean()) {
+                t.cancel();
+            }
+        }, delayTicks, periodTicks);
+    }
+    
     /**
      * Run a global task (use sparingly, prefer location-based).
      */
@@ -0,0 +1,31 @@
+package com.can61cebi.foliatimber.tree;
+
+import org.bukkit.Axis;
+import org.bukkit.Material;
+
+/**
+ * Read-only block access used by the tree scanner.
+ * Lets the same scan run against the live world ({@link WorldBlockSource}), captured
+ * chunk snapshots ({@link SnapshotBlockSource}) or an in-memory grid ({@link VoxelGridBlockSource}).
+ */
+public interface BlockSource {
+
+    /**
+     * Get the material at the given block coordinates.
+     */
+    Material getType(int x, int y, int z);
+
+    /**
+     * Get the axis of an orientable block (logs), or null if the block has no axis.
+     */
+    Axis getAxis(int x, int y, int z);
+
+    /**
+     * Check if a 16x16x16 section holds nothing but air (section coordinates, i.e. block >> 4).
+     * Lets passes over large windows skip whole sections without reading them.
+     * Sources that can't tell cheaply return false.
+     */
+    default boolean isSectionEmpty(int sectionX, int sectionY, int sectionZ) {
+        return false;
+    }
+}
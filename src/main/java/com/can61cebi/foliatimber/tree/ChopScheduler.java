@@ -0,0 +1,192 @@
+package com.can61cebi.foliatimber.tree;
+
+import com.can61cebi.foliatimber.FoliaTimber;
+import com.can61cebi.foliatimber.config.ConfigManager;
+import com.can61cebi.foliatimber.util.BlockKey;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Queues felling jobs per region so mass lumberjacking can't spike one region's tick.
+ * Each region runs at most a configured number of jobs at once and shares a per-tick
+ * block budget between them; further jobs wait in line.
+ * Blocks are claimed when a job is queued, so overlapping trees are never felled twice.
+ * A tree spanning several regions is queued as one part per region, on the thread owning it.
+ */
+public class ChopScheduler {
+    
+    // Folia splits the world into sections of 16x16 chunks; a section always belongs to one region
+    static final int REGION_SHIFT = 4 + 4;
+    
+    private final FoliaTimber plugin;
+    private final ConfigManager config;
+    
+    private final Map<RegionKey, RegionQueue> regions = new ConcurrentHashMap<>();
+    // Claimed block keys per world, released as each part finishes
+    private final Map<UUID, Set<Long>> claimed = new ConcurrentHashMap<>();
+    // Fellings not finished yet (aborted on shutdown so their drops are not lost)
+    private final Set<TreeChopper> running = ConcurrentHashMap.newKeySet();
+    
+    public ChopScheduler(FoliaTimber plugin) {
+        this.plugin = plugin;
+        this.config = plugin.getConfigManager();
+    }
+    
+    /**
+     * Queue a felling job. Must be called on the region thread owning the broken block.
+     */
+    public void submit(TreeChopper chopper) {
+        if (!chopper.prepare()) return;
+        
+        // Claim blocks; those already claimed by another job are left to it
+        World world = chopper.getAnchor().getWorld();
+        Set<Long> worldClaims = claimed.computeIfAbsent(world.getUID(), id -> ConcurrentHashMap.newKeySet());
+        chopper.retainTargets(block -> worldClaims.add(key(block)));
+        if (!chopper.hasTargets()) return;
+        
+        // Each part is queued by the thread owning its region, parts in other regions fell in parallel
+        List<TreeChopper.Part> parts = chopper.split();
+        running.add(chopper);
+        for (TreeChopper.Part part : parts) {
+            Location anchor = part.getAnchor();
+            if (plugin.getScheduler().isOwnedByCurrentRegion(anchor)) {
+                enqueue(part);
+            } else {
+                plugin.getScheduler().runAtLocation(anchor, () -> enqueue(part));
+            }
+        }
+    }
+    
+    /**
+     * Queue a part in its region. Runs on the region thread owning the part.
+     */
+    private void enqueue(TreeChopper.Part part) {
+        Location anchor = part.getAnchor();
+        RegionKey key = new RegionKey(anchor.getWorld().getUID(), anchor.getBlockX() >> REGION_SHIFT, anchor.getBlockZ() >> REGION_SHIFT);
+        RegionQueue queue = regions.computeIfAbsent(key, k -> new RegionQueue(anchor));
+        
+        boolean start;
+        synchronized (queue) {
+            queue.pending.add(part);
+            start = !queue.running;
+            queue.running = true;
+        }
+        if (start) {
+            tick(key, queue);
+        }
+    }
+    
+    /**
+     * Run one tick of a region: start waiting jobs up to the cap, then share the block budget.
+     * Runs on the region thread owning the queue's anchor.
+     */
+    private void tick(RegionKey key, RegionQueue queue) {
+        List<TreeChopper.Part> finished = new ArrayList<>();
+        
+        synchronized (queue) {
+            int maxJobs = Math.max(1, config.getMaxConcurrentChopsPerRegion());
+            while (queue.active.size() < maxJobs && !queue.pending.isEmpty()) {
+                queue.active.add(queue.pending.poll());
+            }
+            
+            int budget = config.getRegionBlocksPerTick() > 0 ? config.getRegionBlocksPerTick() : Integer.MAX_VALUE;
+            int remainingJobs = queue.active.size();
+            for (Iterator<TreeChopper.Part> it = queue.active.iterator(); it.hasNext() && budget > 0; remainingJobs--) {
+                TreeChopper.Part part = it.next();
+                int share = Math.max(1, budget / remainingJobs);
+                budget -= part.breakNext(Math.min(share, part.getBlocksPerTick()));
+                
+                if (part.isDone()) {
+                    it.remove();
+                    finished.add(part);
+                }
+            }
+            
+            if (queue.active.isEmpty() && queue.pending.isEmpty()) {
+                queue.running = false;
+                regions.remove(key, queue);
+            }
+        }
+        
+        for (TreeChopper.Part part : finished) {
+            part.finish();
+            release(part);
+            if (part.getFelling().isFinished()) {
+                running.remove(part.getFelling());
+            }
+        }
+        
+        boolean again;
+        synchronized (queue) {
+            again = queue.running;
+        }
+        if (again) {
+            plugin.getScheduler().runAtLocationLater(queue.anchor, () -> tick(key, queue), 1L);
+        }
+    }
+    
+    /**
+     * Cut all running fellings short (plugin disable, after the scheduled tasks were cancelled):
+     * what they broke so far is dropped or collected and the axe damaged; the rest stays standing.
+     */
+    public void shutdown() {
+        for (RegionQueue queue : regions.values()) {
+            synchronized (queue) {
+                queue.pending.clear();
+                queue.active.clear();
+                queue.running = false;
+            }
+        }
+        regions.clear();
+        
+        for (TreeChopper chopper : running) {
+            chopper.abort();
+        }
+        running.clear();
+        claimed.clear();
+    }
+    
+    private void release(TreeChopper.Part part) {
+        List<Block> blocks = part.getTargetBlocks();
+        if (blocks.isEmpty()) return;
+        
+        Set<Long> worldClaims = claimed.get(blocks.get(0).getWorld().getUID());
+        if (worldClaims == null) return;
+        for (Block block : blocks) {
+            worldClaims.remove(key(block));
+        }
+    }
+    
+    private static long key(Block block) {
+        return BlockKey.pack(block.getX(), block.getY(), block.getZ());
+    }
+    
+    /**
+     * Approximate Folia region: one 16x16 chunk section of a world.
+     */
+    private record RegionKey(UUID world, int x, int z) {}
+    
+    /**
+     * Parts of felling jobs in one region (guarded by its own lock; normally only its region thread touches it).
+     */
+    private static final class RegionQueue {
+        final Location anchor;
+        final ArrayDeque<TreeChopper.Part> pending = new ArrayDeque<>();
+        final List<TreeChopper.Part> active = new ArrayList<>();
+        boolean running;
+        
+        RegionQueue(Location anchor) {
+            this.anchor = anchor;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.can61cebi.foliatimber.tree;
+
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Collects the drops of a whole felling and merges them into full stacks,
+ * so a tree is delivered with one inventory call or a handful of item entities
+ * instead of one per broken block.
+ */
+public class DropAggregator {
+
+    // One entry per distinct item; amounts may exceed the max stack size until delivery
+    private final List<ItemStack> merged = new ArrayList<>();
+
+    /**
+     * Add the drops of one block.
+     */
+    public void addAll(Collection<ItemStack> drops) {
+        for (ItemStack drop : drops) {
+            add(drop);
+        }
+    }
+
+    /**
+     * Add everything collected by another aggregator.
+     */
+    public void merge(DropAggregator other) {
+        for (ItemStack stack : other.merged) {
+            add(stack);
+        }
+    }
+
+    private void add(ItemStack drop) {
+        if (drop == null || drop.getType().isAir() || drop.getAmount() <= 0) return;
+
+        // Trees drop only a few item kinds (log, sapling, stick, apple), a linear scan is enough
+        for (ItemStack stack : merged) {
+            if (stack.isSimilar(drop)) {
+                stack.setAmount(stack.getAmount() + drop.getAmount());
+                return;
+            }
+        }
+        merged.add(drop.clone());
+    }
+
+    public boolean isEmpty() {
+        return merged.isEmpty();
+    }
+
+    /**
+     * Total number of items collected (all kinds).
+     */
+    public int getItemCount() {
+        int count = 0;
+        for (ItemStack stack : merged) {
+            count += stack.getAmount();
+        }
+        return count;
+    }
+
+    /**
+     * Split the merged drops into stacks no larger than their max stack size.
+     */
+    public List<ItemStack> toStacks() {
+        List<ItemStack> stacks = new ArrayList<>();
+        for (ItemStack stack : merged) {
+            int maxSize = Math.max(1, stack.getMaxStackSize());
+            int remaining = stack.getAmount();
+            while (remaining > 0) {
+                ItemStack part = stack.clone();
+                part.setAmount(Math.min(maxSize, remaining));
+                stacks.add(part);
+                remaining -= part.getAmount();
+            }
+        }
+        return stacks;
+    }
+
+    /**
+     * Give everything to the player in one inventory transaction; overflow drops at the player.
+     */
+    public void giveTo(Player player) {
+        if (isEmpty()) return;
+
+        HashMap<Integer, ItemStack> overflow = player.getInventory().addItem(toStacks().toArray(new ItemStack[0]));
+        for (ItemStack item : overflow.values()) {
+            player.getWorld().dropItemNaturally(player.getLocation(), item);
+        }
+    }
+
+    /**
+     * Spawn the merged stacks as item entities at one location.
+     */
+    public void dropAt(Location location) {
+        for (ItemStack stack : toStacks()) {
+            location.getWorld().dropItemNaturally(location, stack);
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.can61cebi.foliatimber.tree;
+
+import com.can61cebi.foliatimber.util.BlockKey;
+import com.can61cebi.foliatimber.util.LongHashSet;
+import com.can61cebi.foliatimber.util.MaterialUtil;
+import org.bukkit.Material;
+
+import java.util.Arrays;
+
+/**
+ * Assigns leaves to a tree using one nearest-log distance field for the whole scan window.
+ *
+ * A leaf belongs to the tree if:
+ * 1. One of our logs lies within the search cube (radius r) around it
+ * 2. No other log in that cube is strictly closer (ties go to our tree)
+ * 3. It is not too far horizontally from the start block
+ *
+ * Instead of searching a (2r+1)^3 cube per leaf, every block in the window is read once
+ * and a windowed squared-Euclidean distance transform is computed for our logs and for
+ * foreign logs. The transform is separable (one pass per axis), so the cost scales with
+ * the window volume instead of leaves * r^3, and gives exactly the per-leaf search result.
+ * Sections the source reports as empty are skipped while reading: they hold no logs or leaves.
+ */
+public final class LeafOwnership {
+
+    private static final int INF = Integer.MAX_VALUE / 2;
+
+    private static final byte OTHER = 0;
+    private static final byte OUR_LOG = 1;
+    private static final byte FOREIGN_LOG = 2;
+    private static final byte LEAF = 3;
+
+    private static final int[][] FACES = {{1, 0, 0}, {-1, 0, 0}, {0, 1, 0}, {0, -1, 0}, {0, 0, 1}, {0, 0, -1}};
+
+    private LeafOwnership() {}
+
+    /**
+     * Find all leaves that belong to the given logs.
+     *
+     * @param source        Block access
+     * @param ourLogs       Packed keys of the tree's logs
+     * @param woodFamily    Wood family of the tree (see {@link MaterialUtil#getWoodFamily})
+     * @param radius        Leaf search radius
+     * @param startX        X of the start block
+     * @param startZ        Z of the start block
+     * @param maxLeafSpread Maximum horizontal distance of a leaf from the start block
+     * @return Packed keys of the owned leaves
+     */
+    public static LongHashSet findLeaves(BlockSource source, LongHashSet ourLogs, int woodFamily,
+                                         int radius, int startX, int startZ, int maxLeafSpread) {
+        LongHashSet leaves = new LongHashSet();
+        if (ourLogs.isEmpty()) return leaves;
+
+        // Candidate leaves lie within r of our logs, the logs competing for them within 2r
+        long[] logKeys = ourLogs.toArray();
+        int[] box = bounds(logKeys);
+        int reach = 2 * radius;
+        int originX = box[0] - reach;
+        int originY = box[1] - reach;
+        int originZ = box[2] - reach;
+        int sizeX = box[3] - box[0] + 2 * reach + 1;
+        int sizeY = box[4] - box[1] + 2 * reach + 1;
+        int sizeZ = box[5] - box[2] + 2 * reach + 1;
+
+        // Read every block in the window exactly once, row segments split at section borders
+        byte[] grid = new byte[sizeX * sizeY * sizeZ];
+        for (int y = 0; y < sizeY; y++) {
+            boolean candidateY = y >= radius && y < sizeY - radius;
+            int sectionY = (originY + y) >> 4;
+            for (int z = 0; z < sizeZ; z++) {
+                boolean candidateZ = candidateY && z >= radius && z < sizeZ - radius;
+                int sectionZ = (originZ + z) >> 4;
+                int row = (y * sizeZ + z) * sizeX;
+                int x = 0;
+                while (x < sizeX) {
+                    int worldX = originX + x;
+                    int end = Math.min(sizeX, x + 16 - (worldX & 15));
+                    // Empty section: cells stay OTHER
+                    if (source.isSectionEmpty(worldX >> 4, sectionY, sectionZ)) {
+                        x = end;
+                        continue;
+                    }
+                    for (; x < end; x++) {
+                        Material type = source.getType(originX + x, originY + y, originZ + z);
+                        if (MaterialUtil.isLogBlock(type)) {
+                            grid[row + x] = FOREIGN_LOG;
+                        } else if (candidateZ && x >= radius && x < sizeX - radius && MaterialUtil.isValidLeaf(woodFamily, type)) {
+                            grid[row + x] = LEAF;
+                        }
+                    }
+                }
+            }
+        }
+        for (long log : logKeys) {
+            int x = BlockKey.x(log) - originX;
+            int y = BlockKey.y(log) - originY;
+            int z = BlockKey.z(log) - originZ;
+            grid[(y * sizeZ + z) * sizeX + x] = OUR_LOG;
+        }
+
+        // Pass 1 (X axis): squared distance to the nearest log within r along each row
+        int[] ourX = new int[grid.length];
+        int[] foreignX = new int[grid.length];
+        for (int y = 0; y < sizeY; y++) {
+            for (int z = 0; z < sizeZ; z++) {
+                int row = (y * sizeZ + z) * sizeX;
+                rowDistance(grid, row, sizeX, OUR_LOG, radius, ourX);
+                rowDistance(grid, row, sizeX, FOREIGN_LOG, radius, foreignX);
+            }
+        }
+
+        // Pass 2 (Y axis), only for columns that can hold candidate leaves
+        int[] ourXY = new int[grid.length];
+        int[] foreignXY = new int[grid.length];
+        Arrays.fill(ourXY, INF);
+        Arrays.fill(foreignXY, INF);
+        int strideY = sizeZ * sizeX;
+        for (int y = radius; y < sizeY - radius; y++) {
+            for (int z = 0; z < sizeZ; z++) {
+                int row = (y * sizeZ + z) * sizeX;
+                for (int x = radius; x < sizeX - radius; x++) {
+                    int index = row + x;
+                    ourXY[index] = windowMin(ourX, index, strideY, radius);
+                    foreignXY[index] = windowMin(foreignX, index, strideY, radius);
+                }
+            }
+        }
+
+        // Pass 3 (Z axis), evaluated only at candidate leaves
+        int maxLeafX = startX + maxLeafSpread;
+        int minLeafX = startX - maxLeafSpread;
+        int maxLeafZ = startZ + maxLeafSpread;
+        int minLeafZ = startZ - maxLeafSpread;
+        for (int y = radius; y < sizeY - radius; y++) {
+            for (int z = radius; z < sizeZ - radius; z++) {
+                int row = (y * sizeZ + z) * sizeX;
+                for (int x = radius; x < sizeX - radius; x++) {
+                    int index = row + x;
+                    if (grid[index] != LEAF) continue;
+
+                    // No log of ours within the search cube: not a candidate
+                    int ourDist = windowMin(ourXY, index, sizeX, radius);
+                    if (ourDist >= INF) continue;
+
+                    // Only include if nearest log is ours (same distance counts as ours)
+                    int foreignDist = windowMin(foreignXY, index, sizeX, radius);
+                    if (ourDist > foreignDist) continue;
+
+                    // Leaf shouldn't be too far horizontally from tree center
+                    int worldX = originX + x;
+                    int worldZ = originZ + z;
+                    if (worldX < minLeafX || worldX > maxLeafX || worldZ < minLeafZ || worldZ > maxLeafZ) continue;
+
+                    leaves.add(BlockKey.pack(worldX, originY + y, worldZ));
+                }
+            }
+        }
+
+        return leaves;
+    }
+
+    /**
+     * Collect leaves face-adjacent to our logs, stopping once {@code limit} are found.
+     * No log can be strictly closer to such a leaf than ours (distance 1, ties go to our tree),
+     * so every leaf found here is also found by {@link #findLeaves}, without reading its window.
+     *
+     * @param leaves Receives the packed keys of the leaves found
+     * @return Number of blocks read
+     */
+    public static int findAdjacentLeaves(BlockSource source, LongHashSet ourLogs, int woodFamily, int radius,
+                                         int startX, int startZ, int maxLeafSpread, int limit, LongHashSet leaves) {
+        if (radius < 1 || leaves.size() >= limit) return 0;
+
+        int reads = 0;
+        LongHashSet checked = new LongHashSet();
+        for (long log : ourLogs.toArray()) {
+            for (int[] face : FACES) {
+                long key = BlockKey.offset(log, face[0], face[1], face[2]);
+                if (ourLogs.contains(key) || !checked.add(key)) continue;
+
+                int x = BlockKey.x(key);
+                int z = BlockKey.z(key);
+                if (Math.abs(x - startX) > maxLeafSpread || Math.abs(z - startZ) > maxLeafSpread) continue;
+
+                reads++;
+                if (MaterialUtil.isValidLeaf(woodFamily, source.getType(x, BlockKey.y(key), z))) {
+                    leaves.add(key);
+                    if (leaves.size() >= limit) return reads;
+                }
+            }
+        }
+        return reads;
+    }
+
+    /**
+     * Number of blocks {@link #findLeaves} reads for the given logs.
+     */
+    public static long windowVolume(LongHashSet ourLogs, int radius) {
+        if (ourLogs.isEmpty()) return 0;
+        int[] box = bounds(ourLogs.toArray());
+        int size = 4 * radius + 1;
+        return (long) (box[3] - box[0] + size) * (box[4] - box[1] + size) * (box[5] - box[2] + size);
+    }
+
+    /**
+     * Number of blocks {@link #findLeaves} reads for the given logs from this source,
+     * i.e. the window volume minus the parts inside empty sections.
+     */
+    public static long windowReads(BlockSource source, LongHashSet ourLogs, int radius) {
+        if (ourLogs.isEmpty()) return 0;
+        int[] box = bounds(ourLogs.toArray());
+        int reach = 2 * radius;
+        int minX = box[0] - reach;
+        int minY = box[1] - reach;
+        int minZ = box[2] - reach;
+        int maxX = box[3] + reach;
+        int maxY = box[4] + reach;
+        int maxZ = box[5] + reach;
+
+        long reads = 0;
+        for (int sectionY = minY >> 4; sectionY <= maxY >> 4; sectionY++) {
+            int spanY = overlap(sectionY, minY, maxY);
+            for (int sectionZ = minZ >> 4; sectionZ <= maxZ >> 4; sectionZ++) {
+                int spanZ = overlap(sectionZ, minZ, maxZ);
+                for (int sectionX = minX >> 4; sectionX <= maxX >> 4; sectionX++) {
+                    if (source.isSectionEmpty(sectionX, sectionY, sectionZ)) continue;
+                    reads += (long) overlap(sectionX, minX, maxX) * spanY * spanZ;
+                }
+            }
+        }
+        return reads;
+    }
+
+    /**
+     * Number of blocks of [min, max] inside the given section along one axis.
+     */
+    private static int overlap(int section, int min, int max) {
+        return Math.min(max, (section << 4) + 15) - Math.max(min, section << 4) + 1;
+    }
+
+    /**
+     * Bounding box of packed keys as {minX, minY, minZ, maxX, maxY, maxZ}.
+     */
+    private static int[] bounds(long[] keys) {
+        int[] box = {Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE,
+                     Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE};
+        for (long key : keys) {
+            box[0] = Math.min(box[0], BlockKey.x(key));
+            box[1] = Math.min(box[1], BlockKey.y(key));
+            box[2] = Math.min(box[2], BlockKey.z(key));
+            box[3] = Math.max(box[3], BlockKey.x(key));
+            box[4] = Math.max(box[4], BlockKey.y(key));
+            box[5] = Math.max(box[5], BlockKey.z(key));
+        }
+        return box;
+    }
+
+    /**
+     * Squared distance along one row to the nearest cell of the given kind, capped at radius.
+     */
+    private static void rowDistance(byte[] grid, int row, int length, byte kind, int radius, int[] out) {
+        int last = -INF;
+        for (int x = 0; x < length; x++) {
+            if (grid[row + x] == kind) last = x;
+            out[row + x] = x - last;
+        }
+        last = INF;
+        for (int x = length - 1; x >= 0; x--) {
+            if (grid[row + x] == kind) last = x;
+            int dist = Math.min(out[row + x], last - x);
+            out[row + x] = dist <= radius ? dist * dist : INF;
+        }
+    }
+
+    /**
+     * Minimum of {@code values[index + d * stride] + d^2} for d in [-radius, radius].
+     */
+    private static int windowMin(int[] values, int index, int stride, int radius) {
+        int best = INF;
+        for (int d = -radius; d <= radius; d++) {
+            int value = values[index + d * stride];
+            if (value >= INF) continue;
+            int dist = value + d * d;
+            if (dist < best) best = dist;
+        }
+        return best;
+    }
+}
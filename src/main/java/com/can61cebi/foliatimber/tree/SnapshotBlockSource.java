@@ -0,0 +1,98 @@
+package com.can61cebi.foliatimber.tree;
+
+import org.bukkit.Axis;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.data.Orientable;
+
+/**
+ * Block source backed by chunk snapshots captured on the region thread.
+ * Snapshots are immutable, so scans over this source can run on any thread.
+ * Blocks outside the captured window (or in unloaded chunks) read as VOID_AIR.
+ */
+public class SnapshotBlockSource implements BlockSource {
+
+    private final ChunkSnapshot[] snapshots;
+    private final int minChunkX;
+    private final int minChunkZ;
+    private final int width;
+    private final int depth;
+    private final int minY;
+    private final int maxY;
+
+    private SnapshotBlockSource(ChunkSnapshot[] snapshots, int minChunkX, int minChunkZ,
+                                int width, int depth, int minY, int maxY) {
+        this.snapshots = snapshots;
+        this.minChunkX = minChunkX;
+        this.minChunkZ = minChunkZ;
+        this.width = width;
+        this.depth = depth;
+        this.minY = minY;
+        this.maxY = maxY;
+    }
+
+    /**
+     * Capture snapshots of every loaded chunk within the given block radius of a column.
+     * Must be called on the region thread owning the center block.
+     * Unloaded chunks are skipped instead of being loaded synchronously.
+     */
+    public static SnapshotBlockSource capture(World world, int centerX, int centerZ, int radius) {
+        int minChunkX = (centerX - radius) >> 4;
+        int maxChunkX = (centerX + radius) >> 4;
+        int minChunkZ = (centerZ - radius) >> 4;
+        int maxChunkZ = (centerZ + radius) >> 4;
+        int width = maxChunkX - minChunkX + 1;
+        int depth = maxChunkZ - minChunkZ + 1;
+
+        ChunkSnapshot[] snapshots = new ChunkSnapshot[width * depth];
+        for (int cx = minChunkX; cx <= maxChunkX; cx++) {
+            for (int cz = minChunkZ; cz <= maxChunkZ; cz++) {
+                if (!world.isChunkLoaded(cx, cz)) continue;
+                // No heightmap, biome or temperature data needed for block scans
+                snapshots[(cx - minChunkX) + (cz - minChunkZ) * width] =
+                    world.getChunkAt(cx, cz).getChunkSnapshot(false, false, false);
+            }
+        }
+
+        return new SnapshotBlockSource(snapshots, minChunkX, minChunkZ, width, depth,
+            world.getMinHeight(), world.getMaxHeight());
+    }
+
+    private ChunkSnapshot snapshotAt(int x, int y, int z) {
+        if (y < minY || y >= maxY) return null;
+        int cx = (x >> 4) - minChunkX;
+        int cz = (z >> 4) - minChunkZ;
+        if (cx < 0 || cz < 0 || cx >= width || cz >= depth) return null;
+        return snapshots[cx + cz * width];
+    }
+
+    @Override
+    public Material getType(int x, int y, int z) {
+        ChunkSnapshot snapshot = snapshotAt(x, y, z);
+        if (snapshot == null) return Material.VOID_AIR;
+        return snapshot.getBlockType(x & 15, y, z & 15);
+    }
+
+    /**
+     * Uses the section emptiness recorded in the snapshot (from the section palette).
+     * Sections outside the captured window read as VOID_AIR and count as empty.
+     */
+    @Override
+    public boolean isSectionEmpty(int sectionX, int sectionY, int sectionZ) {
+        int index = sectionY - (minY >> 4);
+        if (index < 0 || sectionY << 4 >= maxY) return true;
+        ChunkSnapshot snapshot = snapshotAt(sectionX << 4, sectionY << 4, sectionZ << 4);
+        if (snapshot == null) return true;
+        return snapshot.isSectionEmpty(index);
+    }
+
+    @Override
+    public Axis getAxis(int x, int y, int z) {
+        ChunkSnapshot snapshot = snapshotAt(x, y, z);
+        if (snapshot != null && snapshot.getBlockData(x & 15, y, z & 15) instanceof Orientable orientable) {
+            return orientable.getAxis();
+        }
+        return null;
+    }
+}
@@ -1,7 +1,11 @@
 package com.can61cebi.foliatimber.tree;
 
 import com.can61cebi.foliatimber.FoliaTimber;
-import com.can61cebi.foliatimber.config.ConfigManager;
+import com.can61cebi.foliatimber.config.Settings;
+import com.can61cebi.foliatimber.metrics.TimberMetrics;
+import com.can61cebi.foliatimber.metrics.TreeFellEvent;
+import com.can61cebi.foliatimber.util.BlockKey;
+import com.can61cebi.foliatimber.util.LongHashSet;
 import com.can61cebi.foliatimber.util.MaterialUtil;
 import org.bukkit.*;
 import org.bukkit.block.Block;
@@ -13,40 +17,86 @@ import org.bukkit.inventory.meta.ItemMeta;
 
 import java.util.*;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
 
 /**
- * Handles the actual tree chopping process.
- * All blocks break instantly, only logs damage the axe.
+ * Handles the actual tree chopping process (one felling job).
+ * Driven by {@link ChopScheduler}: blocks break instantly or spread over several ticks
+ * (chopping.mode), only logs damage the axe.
+ *
+ * A tree crossing region borders is split into {@link Part}s, one per region, each
+ * broken by the thread owning its blocks. Once every part is done, the counts and
+ * drops are joined and the axe that started the felling is damaged once for the whole tree.
+ * If the plugin is disabled mid-felling, {@link #abort} hands out what was broken so far.
+ *
+ * Blocks are removed without physics; once a part is done, its boundary gets one
+ * neighbour update per block, so nothing cascades through the tree while it is felled.
  */
 public class TreeChopper {
     
+    private static final int[][] FACES = {{1, 0, 0}, {-1, 0, 0}, {0, 1, 0}, {0, -1, 0}, {0, 0, 1}, {0, 0, -1}};
+    
     private final FoliaTimber plugin;
-    private final ConfigManager config;
+    // One settings snapshot for the whole felling (the one its checks used)
+    private final Settings settings;
     private final Player player;
     private final TreeData treeData;
     
-    public TreeChopper(FoliaTimber plugin, Player player, TreeData treeData, ItemStack tool) {
+    // Blocks in break order; logs are flagged for tool damage
+    private final List<Target> targets = new ArrayList<>();
+    
+    // Joined from the parts as they finish (guarded by this)
+    private int pendingParts;
+    private int logsBroken;
+    private int blocksBroken;
+    
+    // Region thread time spent on this felling so far (all ticks, all parts)
+    private long workNanos;
+    
+    // JFR event spanning the whole felling (committed in finish)
+    private final TreeFellEvent fellEvent = new TreeFellEvent();
+    
+    // The axe that started the felling (a live view of the item, damaged wherever it ends up)
+    private final ItemStack tool;
+    
+    // Tool used for drops, captured at start so spread felling drops the same as instant
+    private ItemStack dropTool;
+    
+    // Parts of this felling (set by split) and whether it finished or was cut short
+    private List<Part> parts = List.of();
+    private volatile boolean finished;
+    private volatile boolean aborted;
+    
+    // Drops of the whole felling, delivered once in finish()
+    private final DropAggregator drops = new DropAggregator();
+    
+    public TreeChopper(FoliaTimber plugin, Settings settings, Player player, TreeData treeData, ItemStack tool) {
         this.plugin = plugin;
-        this.config = plugin.getConfigManager();
+        this.settings = settings;
         this.player = player;
         this.treeData = treeData;
+        this.tool = tool;
     }
     
     /**
-     * Start the tree chopping process - all blocks break instantly.
+     * Prepare the felling: check the axe, play the sound and build the break order.
+     * Must be called on the region thread owning the tree.
+     *
+     * @return false if there is nothing to chop (no axe or no blocks)
      */
-    public void startChopping() {
+    public boolean prepare() {
+        fellEvent.begin();
+        long start = System.nanoTime();
         Set<Block> logs = treeData.logs();
-        Set<Block> leaves = treeData.leaves();
         
-        // Check if player still has axe
-        ItemStack playerTool = player.getInventory().getItemInMainHand();
-        if (playerTool == null || !MaterialUtil.isAxe(playerTool.getType())) {
-            return;
+        // Check if the axe that started the felling is still an axe (not broken meanwhile)
+        if (tool == null || !MaterialUtil.isAxe(tool.getType())) {
+            return false;
         }
+        dropTool = tool.clone();
         
         // Play ONE sound for the whole tree
-        if (config.useSounds() && !logs.isEmpty()) {
+        if (settings.sounds() && !logs.isEmpty()) {
             Block firstLog = logs.iterator().next();
             firstLog.getWorld().playSound(
                 firstLog.getLocation().add(0.5, 0.5, 0.5),
@@ -55,66 +105,202 @@ public class TreeChopper {
             );
         }
         
-        // Break all logs and count them for tool damage
-        int logsBroken = 0;
-        for (Block log : logs) {
-            if (log.getType().isAir()) continue;
-            breakBlock(log, true);
-            logsBroken++;
+        buildTargets();
+        workNanos += System.nanoTime() - start;
+        return !targets.isEmpty();
+    }
+    
+    /**
+     * Build the break order: logs then leaves, or all blocks sorted by height.
+     */
+    private void buildTargets() {
+        for (Block log : treeData.logs()) {
+            targets.add(new Target(log, true));
         }
         
-        // Break all leaves if configured (no tool damage)
-        if (config.breakLeaves()) {
-            for (Block leaf : leaves) {
-                if (leaf.getType().isAir()) continue;
-                breakBlock(leaf, false);
+        // Break leaves if configured (no tool damage)
+        if (settings.breakLeaves()) {
+            for (Block leaf : treeData.leaves()) {
+                targets.add(new Target(leaf, false));
             }
         }
         
-        // Apply tool damage ONLY for logs broken
-        if (logsBroken > 0) {
-            applyToolDamage(logsBroken);
+        if (!settings.spreadChopping()) return;
+        
+        Comparator<Target> byHeight = Comparator.comparingInt(target -> target.block().getY());
+        switch (settings.chopOrder()) {
+            case "top-down" -> targets.sort(byHeight.reversed());
+            case "bottom-up" -> targets.sort(byHeight);
+            default -> { }
+        }
+    }
+    
+    /**
+     * Keep only the blocks accepted by {@code claim} (drops blocks another felling already owns).
+     */
+    public void retainTargets(Predicate<Block> claim) {
+        targets.removeIf(target -> !claim.test(target.block()));
+    }
+    
+    public boolean hasTargets() {
+        return !targets.isEmpty();
+    }
+    
+    /**
+     * Location of the first block to break.
+     */
+    public Location getAnchor() {
+        return targets.get(0).block().getLocation();
+    }
+    
+    /**
+     * Split the break order by region (see {@link ChopScheduler#REGION_SHIFT}), keeping the order
+     * within each part. Call once, after the targets are final.
+     */
+    public List<Part> split() {
+        Map<Long, List<Target>> byRegion = new LinkedHashMap<>();
+        for (Target target : targets) {
+            Block block = target.block();
+            long region = ((long) (block.getX() >> ChopScheduler.REGION_SHIFT) << 32)
+                    | ((block.getZ() >> ChopScheduler.REGION_SHIFT) & 0xFFFFFFFFL);
+            byRegion.computeIfAbsent(region, k -> new ArrayList<>()).add(target);
         }
         
-        // Show particles at center of tree
-        if (config.useParticles() && !logs.isEmpty()) {
-            showTreeParticles(logs);
+        List<Part> parts = new ArrayList<>(byRegion.size());
+        for (List<Target> regionTargets : byRegion.values()) {
+            parts.add(new Part(regionTargets));
+        }
+        synchronized (this) {
+            pendingParts = parts.size();
+            this.parts = parts;
         }
+        return parts;
+    }
+    
+    public boolean isFinished() {
+        return finished;
     }
     
     /**
-     * Break a single block (no sound, handled separately).
+     * Finish a felling cut short by a plugin disable (its tasks are cancelled): the parts not joined
+     * yet update their boundary and hand in what they broke so far, and the drops and tool damage
+     * are applied right here. Blocks not reached are left standing.
      */
-    private void breakBlock(Block block, boolean isLog) {
-        Location loc = block.getLocation().add(0.5, 0.5, 0.5);
-        
-        // Get drops using player's actual current tool
-        ItemStack playerTool = player.getInventory().getItemInMainHand();
-        Collection<ItemStack> drops = block.getDrops(playerTool, player);
-        
-        // Remove the block
-        block.setType(Material.AIR);
-        
-        // Handle drops
-        if (config.autoCollect()) {
-            for (ItemStack drop : drops) {
-                HashMap<Integer, ItemStack> overflow = player.getInventory().addItem(drop);
-                for (ItemStack item : overflow.values()) {
-                    player.getWorld().dropItemNaturally(player.getLocation(), item);
-                }
+    public void abort() {
+        List<Part> unjoined = new ArrayList<>();
+        synchronized (this) {
+            if (finished) return;
+            aborted = true;
+            for (Part part : parts) {
+                if (!part.joined) unjoined.add(part);
             }
-        } else {
-            for (ItemStack drop : drops) {
-                block.getWorld().dropItemNaturally(loc, drop);
+        }
+        for (Part part : unjoined) {
+            part.finish();
+        }
+    }
+    
+    /**
+     * Max blocks this felling breaks per tick (spread mode), or unlimited (instant mode).
+     */
+    public int getBlocksPerTick() {
+        return settings.spreadChopping() ? Math.max(1, settings.chopBlocksPerTick()) : Integer.MAX_VALUE;
+    }
+    
+    /**
+     * Join a finished part; the last one finishes the felling.
+     */
+    private void join(Part part) {
+        synchronized (this) {
+            if (part.joined) return;
+            part.joined = true;
+            drops.merge(part.drops);
+            logsBroken += part.logsBroken;
+            blocksBroken += part.blocksBroken;
+            workNanos += part.workNanos;
+            if (--pendingParts > 0) return;
+            finished = true;
+        }
+        finish();
+    }
+    
+    /**
+     * Deliver drops, apply tool damage and effects once all parts are done.
+     * Runs on the thread of the last part; player and world work goes to their owners.
+     */
+    private void finish() {
+        long start = System.nanoTime();
+        Set<Block> logs = treeData.logs();
+        int dropCount = drops.getItemCount();
+        
+        // Drops land at the base of the tree, particles at its center
+        Location base = logs.isEmpty() ? null : getTreeCenter(logs);
+        if (base != null) {
+            base.setY(getLowestY(logs) + 0.5);
+        }
+        Runnable dropAtTree = () -> {
+            if (base != null && !drops.isEmpty()) {
+                runAt(base, () -> drops.dropAt(base));
             }
+        };
+        
+        // Deliver all drops at once (player may have logged out during spread felling)
+        boolean collect = settings.autoCollect() && player.isOnline();
+        if (collect || logsBroken > 0) {
+            Runnable atPlayer = () -> {
+                if (collect) drops.giveTo(player);
+                // Apply tool damage ONLY for logs broken
+                if (logsBroken > 0) applyToolDamage(logsBroken);
+            };
+            if (aborted || plugin.getScheduler().isOwnedByCurrentRegion(player)) {
+                atPlayer.run();
+            } else {
+                plugin.getScheduler().runAtEntityWithFallback(player, atPlayer, collect ? dropAtTree : () -> { });
+            }
+        }
+        if (!collect) {
+            dropAtTree.run();
+        }
+        
+        // Show particles at center of tree
+        if (settings.particles() && !logs.isEmpty()) {
+            Location center = getTreeCenter(logs);
+            runAt(center, () -> showTreeParticles(logs));
+        }
+        
+        workNanos += System.nanoTime() - start;
+        if (!targets.isEmpty()) {
+            String world = targets.get(0).block().getWorld().getName();
+            plugin.getMetrics().recordLatency(TimberMetrics.Stage.FELL, world, workNanos);
+            plugin.getMetrics().recordFelling(blocksBroken);
+        }
+        
+        fellEvent.end();
+        if (fellEvent.shouldCommit()) {
+            fellEvent.world = targets.isEmpty() ? null : targets.get(0).block().getWorld().getName();
+            fellEvent.blocksBroken = blocksBroken;
+            fellEvent.drops = dropCount;
+            fellEvent.workTime = workNanos;
+            fellEvent.commit();
         }
     }
     
     /**
-     * Show particles at tree center.
+     * Run a task on the thread owning a location, right away if that is this thread
+     * (or the felling was aborted, when no more tasks run).
      */
-    private void showTreeParticles(Set<Block> logs) {
-        // Find average position
+    private void runAt(Location location, Runnable task) {
+        if (aborted || plugin.getScheduler().isOwnedByCurrentRegion(location)) {
+            task.run();
+        } else {
+            plugin.getScheduler().runAtLocation(location, task);
+        }
+    }
+    
+    /**
+     * Get the average position of the logs.
+     */
+    private Location getTreeCenter(Set<Block> logs) {
         double avgX = 0, avgY = 0, avgZ = 0;
         for (Block log : logs) {
             avgX += log.getX();
@@ -122,12 +308,27 @@ public class TreeChopper {
             avgZ += log.getZ();
         }
         int count = logs.size();
-        Location center = new Location(
+        return new Location(
             logs.iterator().next().getWorld(),
             avgX / count + 0.5,
             avgY / count + 0.5,
             avgZ / count + 0.5
         );
+    }
+    
+    private int getLowestY(Set<Block> logs) {
+        int minY = Integer.MAX_VALUE;
+        for (Block log : logs) {
+            minY = Math.min(minY, log.getY());
+        }
+        return minY;
+    }
+    
+    /**
+     * Show particles at tree center.
+     */
+    private void showTreeParticles(Set<Block> logs) {
+        Location center = getTreeCenter(logs);
         
         // Spawn particles
         center.getWorld().spawnParticle(
@@ -141,11 +342,12 @@ public class TreeChopper {
     }
     
     /**
-     * Apply durability damage to the player's tool (only for logs).
+     * Apply durability damage to the axe that started the felling (only for logs),
+     * even if the player switched items meanwhile.
      * Respects Unbreaking enchantment manually since Bukkit API doesn't handle it.
      */
     private void applyToolDamage(int logCount) {
-        ItemStack playerTool = player.getInventory().getItemInMainHand();
+        ItemStack playerTool = tool;
 
         if (playerTool == null || playerTool.getType().isAir()) return;
         if (!MaterialUtil.isAxe(playerTool.getType())) return;
@@ -159,7 +361,7 @@ public class TreeChopper {
             // Formula: For each point of damage, there's a 1/(level+1) chance it applies
             // E.g., Unbreaking III = 1/4 = 25% chance per damage point
             int actualDamage = 0;
-            int baseDamage = (int) Math.ceil(logCount * config.getToolDamageMultiplier());
+            int baseDamage = (int) Math.ceil(logCount * settings.toolDamageMultiplier());
 
             if (unbreakingLevel > 0) {
                 // Roll for each damage point
@@ -179,8 +381,8 @@ public class TreeChopper {
             int maxDurability = playerTool.getType().getMaxDurability();
 
             if (newDamage >= maxDurability) {
-                // Tool breaks
-                player.getInventory().setItemInMainHand(null);
+                // Tool breaks (wherever it is now)
+                playerTool.setAmount(0);
                 player.playSound(player.getLocation(), Sound.ENTITY_ITEM_BREAK, 1.0f, 1.0f);
             } else {
                 damageable.setDamage(newDamage);
@@ -188,4 +390,160 @@ public class TreeChopper {
             }
         }
     }
+    
+    /**
+     * A block queued for breaking.
+     */
+    private record Target(Block block, boolean log) {}
+    
+    /**
+     * The blocks of this felling inside one region, broken only by the thread owning them.
+     * Counts and drops stay local to the part until it is joined.
+     */
+    public final class Part {
+        
+        private final List<Target> targets;
+        // Type each target had when broken (null if skipped), for the boundary update
+        private final Material[] brokenTypes;
+        private final LongHashSet broken;
+        // Set once joined into the felling (guarded by the felling)
+        private boolean joined;
+        private int next;
+        private int logsBroken;
+        private int blocksBroken;
+        private long workNanos;
+        private final DropAggregator drops = new DropAggregator();
+        
+        private Part(List<Target> targets) {
+            this.targets = targets;
+            this.brokenTypes = new Material[targets.size()];
+            this.broken = new LongHashSet(targets.size());
+        }
+        
+        public TreeChopper getFelling() {
+            return TreeChopper.this;
+        }
+        
+        /**
+         * Location the part is scheduled at (its first block to break).
+         */
+        public Location getAnchor() {
+            return targets.get(0).block().getLocation();
+        }
+        
+        /**
+         * Get all blocks this part will break (claimed positions).
+         */
+        public List<Block> getTargetBlocks() {
+            List<Block> blocks = new ArrayList<>(targets.size());
+            for (Target target : targets) {
+                blocks.add(target.block());
+            }
+            return blocks;
+        }
+        
+        /**
+         * Max blocks this part breaks per tick (spread mode), or unlimited (instant mode).
+         */
+        public int getBlocksPerTick() {
+            return TreeChopper.this.getBlocksPerTick();
+        }
+        
+        public boolean isDone() {
+            return next >= targets.size();
+        }
+        
+        /**
+         * Break up to {@code maxBlocks} blocks, stopping early once the spread mode time budget is used.
+         *
+         * @return Number of blocks broken
+         */
+        public int breakNext(int maxBlocks) {
+            long maxNanos = settings.spreadChopping() ? settings.chopNanosPerTick() : 0;
+            long start = System.nanoTime();
+            long deadline = start + maxNanos;
+            int broken = 0;
+            
+            while (next < targets.size() && broken < maxBlocks) {
+                int index = next++;
+                Target target = targets.get(index);
+                
+                // Skip blocks that changed since the scan (broken by someone else, etc.)
+                Material type = target.block().getType();
+                if (target.log() ? !MaterialUtil.isLogBlock(type) : !MaterialUtil.isLeafBlock(type)) continue;
+                
+                breakBlock(target.block());
+                brokenTypes[index] = type;
+                if (target.log()) logsBroken++;
+                broken++;
+                blocksBroken++;
+                
+                if (maxNanos > 0 && System.nanoTime() - deadline >= 0) break;
+            }
+            workNanos += System.nanoTime() - start;
+            return broken;
+        }
+        
+        /**
+         * Update the boundary and hand this part's results to the felling once all its blocks are broken.
+         */
+        public void finish() {
+            long start = System.nanoTime();
+            updateBoundary();
+            workNanos += System.nanoTime() - start;
+            join(this);
+        }
+        
+        /**
+         * Give the blocks around this part one neighbour update each. Every broken block next to a
+         * block that is not air (outside the tree, or a target that was skipped or not reached) is
+         * put back without physics and removed again with physics, so the removal reaches its
+         * neighbours the way a normal break would. Neighbours in another region are not read and
+         * always count as needing the update.
+         */
+        private void updateBoundary() {
+            for (int i = 0; i < brokenTypes.length; i++) {
+                Material type = brokenTypes[i];
+                if (type == null) continue;
+                Block block = targets.get(i).block();
+                // A block placed here since then already updated its neighbours
+                if (!touchesBoundary(block) || !block.getType().isAir()) continue;
+                block.setType(type, false);
+                block.setType(Material.AIR, true);
+            }
+        }
+        
+        private boolean touchesBoundary(Block block) {
+            World world = block.getWorld();
+            int x = block.getX();
+            int y = block.getY();
+            int z = block.getZ();
+            for (int[] face : FACES) {
+                int nx = x + face[0];
+                int ny = y + face[1];
+                int nz = z + face[2];
+                if (broken.contains(BlockKey.pack(nx, ny, nz))) continue;
+                if (nx >> ChopScheduler.REGION_SHIFT != x >> ChopScheduler.REGION_SHIFT
+                        || nz >> ChopScheduler.REGION_SHIFT != z >> ChopScheduler.REGION_SHIFT) return true;
+                if (!world.getType(nx, ny, nz).isAir()) return true;
+            }
+            return false;
+        }
+        
+        /**
+         * Break a single block (no sound, handled separately).
+         * Drops are collected and delivered when the tree is done.
+         */
+        private void breakBlock(Block block) {
+            // Get drops using the tool the tree was started with (its enchantments decide the loot);
+            // the player is owned by another thread here, so it is not passed to the loot table
+            drops.addAll(block.getDrops(dropTool));
+            
+            // Remove the block (no event fires, so drop cached scans here)
+            // Neighbours are updated once the part is done (see updateBoundary)
+            block.setType(Material.AIR, false);
+            broken.add(BlockKey.pack(block.getX(), block.getY(), block.getZ()));
+            plugin.getTreeScanCache().invalidate(block.getWorld(), block.getX(), block.getY(), block.getZ());
+        }
+    }
 }
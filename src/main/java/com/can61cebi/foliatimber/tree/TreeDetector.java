@@ -1,15 +1,22 @@
 package com.can61cebi.foliatimber.tree;
 
-import com.can61cebi.foliatimber.config.ConfigManager;
+import com.can61cebi.foliatimber.config.Settings;
+import com.can61cebi.foliatimber.config.SettingsSource;
+import com.can61cebi.foliatimber.metrics.TimberMetrics;
+import com.can61cebi.foliatimber.metrics.TreeScanEvent;
+import com.can61cebi.foliatimber.util.BlockKey;
+import com.can61cebi.foliatimber.util.LongHashSet;
+import com.can61cebi.foliatimber.util.LongQueue;
 import com.can61cebi.foliatimber.util.MaterialUtil;
 import org.bukkit.Axis;
 import org.bukkit.Material;
+import org.bukkit.World;
 import org.bukkit.block.Block;
-import org.bukkit.block.data.Orientable;
 
 import java.util.*;
-
-import static com.can61cebi.foliatimber.protection.StructureProtection.STRUCTURE_BLOCKS;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
 
 /**
  * Detects and validates tree structures using BFS algorithm.
@@ -17,10 +24,16 @@ import static com.can61cebi.foliatimber.protection.StructureProtection.STRUCTURE
  */
 public class TreeDetector {
 
-    private final ConfigManager config;
+    private final SettingsSource config;
+    private final TreeScanCache scanCache;
+    private final TimberMetrics metrics;
+    private final Logger logger;
 
     // Maximum horizontal distance from starting block (prevents connecting adjacent trees)
-    private static final int MAX_HORIZONTAL_SPREAD = 3;
+    static final int MAX_HORIZONTAL_SPREAD = 3;
+
+    // Trees with at least this many leaves may have horizontal logs (natural branches)
+    private static final int HORIZONTAL_BRANCH_MIN_LEAVES = 50;
 
     // Fail reason codes (used for localization)
     public static final String REASON_MIN_LEAVES = "MIN_LEAVES";
@@ -28,80 +41,237 @@ public class TreeDetector {
     public static final String REASON_HORIZONTAL = "HORIZONTAL";
     public static final String REASON_MIXED_LOGS = "MIXED_LOGS";
     public static final String REASON_NO_LOGS_ABOVE = "NO_LOGS_ABOVE";
+    public static final String REASON_SCAN_BUDGET = "SCAN_BUDGET";
     
-    public TreeDetector(ConfigManager config) {
+    // At most one slow-scan report per interval, the rest are counted
+    private static final long SLOW_SCAN_REPORT_INTERVAL = 10_000_000_000L;
+    private final AtomicLong lastSlowScanReport = new AtomicLong(System.nanoTime() - SLOW_SCAN_REPORT_INTERVAL);
+    private final AtomicInteger suppressedSlowScans = new AtomicInteger();
+    
+    public TreeDetector(SettingsSource config, TreeScanCache scanCache, TimberMetrics metrics, Logger logger) {
         this.config = config;
+        this.scanCache = scanCache;
+        this.metrics = metrics;
+        this.logger = logger;
     }
     
     /**
-     * Scan for a tree starting from the given block.
+     * Scan for a tree starting from the given block, reading the live world.
+     * Must be called on the region thread owning the block.
      *
      * @param startBlock The initial log block
      * @param logType    The type of log to scan for
      * @return TreeData containing scan results
      */
     public TreeData scanTree(Block startBlock, Material logType) {
-        Set<Block> logs = new HashSet<>();
-        Set<Block> leaves = new HashSet<>();
-        Map<Block, Material> potentialStructureBlocks = new HashMap<>();
-        Queue<Block> queue = new LinkedList<>();
-        Set<Block> visited = new HashSet<>();
+        World world = startBlock.getWorld();
+        int x = startBlock.getX();
+        int y = startBlock.getY();
+        int z = startBlock.getZ();
+        
+        TreeScan cached = getCachedScan(world, x, y, z);
+        if (cached != null) {
+            return cached.toTreeData(world, true);
+        }
+        
+        TreeScan scan = scan(world.getName(), new WorldBlockSource(world), x, y, z, logType);
+        if (isCacheable(scan)) {
+            scanCache.put(world, x, y, z, scan, getScanReach());
+        }
+        return scan.toTreeData(world, false);
+    }
+    
+    /**
+     * Get a cached scan of the tree containing a log (convert with recheck, blocks may change without events).
+     *
+     * @return The scan, or null if the tree has to be scanned
+     */
+    public TreeScan getCachedScan(World world, int x, int y, int z) {
+        return scanCache.get(world, x, y, z);
+    }
+    
+    /**
+     * Register an async snapshot scan so its result can be cached (call before capturing).
+     */
+    public TreeScanCache.Ticket reserveScan(World world, int x, int y, int z) {
+        return scanCache.reserve(world, x, y, z, getScanWindowRadius());
+    }
+    
+    /**
+     * Finish an async snapshot scan (scan is null if it failed).
+     */
+    public void completeScan(TreeScanCache.Ticket ticket, TreeScan scan) {
+        scanCache.complete(ticket, scan != null && isCacheable(scan) ? scan : null, getScanReach());
+    }
+    
+    /**
+     * Aborted scans are not cached: the budget may have run out because the server was busy.
+     */
+    private static boolean isCacheable(TreeScan scan) {
+        return !REASON_SCAN_BUDGET.equals(scan.failReason());
+    }
+    
+    /**
+     * How far (blocks) beyond the logs a scan reads: BFS neighbours, the leaf
+     * ownership window and the treehouse sweep.
+     */
+    private int getScanReach() {
+        Settings settings = config.getSettings();
+        int treehouseReach = settings.checkTreehouse() ? settings.treehouseCheckRadius() : 0;
+        return Math.max(1, Math.max(2 * settings.leafSearchRadius(), treehouseReach));
+    }
+
+    /**
+     * Horizontal radius (in blocks) around the start block that a scan may read.
+     * Logs spread at most {@link #MAX_HORIZONTAL_SPREAD} blocks, leaf ownership checks
+     * read up to two leaf radii beyond that, the treehouse sweep one treehouse radius.
+     */
+    public int getScanWindowRadius() {
+        Settings settings = config.getSettings();
+        int leafReach = 2 * settings.leafSearchRadius();
+        int treehouseReach = settings.checkTreehouse() ? settings.treehouseCheckRadius() : 0;
+        return MAX_HORIZONTAL_SPREAD + Math.max(leafReach, treehouseReach);
+    }
+
+    /**
+     * Scan for a tree and record latency, blocks read and the reject reason for the world
+     * (also emitted as a JFR event when a recording enables it).
+     *
+     * @param worldName World the source reads (for per-world stats)
+     * @see #scan(BlockSource, int, int, int, Material)
+     */
+    public TreeScan scan(String worldName, BlockSource source, int startX, int startY, int startZ, Material logType) {
+        TreeScanEvent event = new TreeScanEvent();
+        event.begin();
+        long start = System.nanoTime();
+        TreeScan scan = scan(source, startX, startY, startZ, logType);
+        metrics.recordLatency(TimberMetrics.Stage.SCAN, worldName, System.nanoTime() - start);
+        metrics.recordBlocksRead(worldName, scan.blocksRead());
+        if (!scan.isNaturalTree()) {
+            metrics.countReject(scan.failReason());
+        }
+        if (REASON_SCAN_BUDGET.equals(scan.failReason())) {
+            reportSlowScan(worldName, startX, startY, startZ, scan);
+        }
+        
+        event.end();
+        if (event.shouldCommit()) {
+            event.world = worldName;
+            event.logs = scan.logs().size();
+            event.leaves = scan.leaves().size();
+            event.blocksRead = scan.blocksRead();
+            event.natural = scan.isNaturalTree();
+            event.failReason = scan.failReason();
+            event.commit();
+        }
+        return scan;
+    }
+
+    /**
+     * Scan for a tree starting at the given coordinates.
+     * The BFS works on packed block keys and never creates Block objects,
+     * so it can run on any thread the block source is safe for.
+     *
+     * The scan is a staged pipeline that stops as soon as the verdict is certain:
+     * 1. Log BFS (mixed wood types reject immediately)
+     * 2. Log checks: min-logs, logs above the start block
+     * 3. Leaves: only until min-leaves is proven, unless leaves are broken too
+     * 4. Leaf checks: min-leaves, horizontal logs
+     * 5. Treehouse sweep, only for trees that passed
+     * A rejected scan therefore reports the first failing stage, and its leaves and
+     * structure blocks may be incomplete.
+     *
+     * @param source  Block access (live world or chunk snapshots)
+     * @param startX  X of the initial log block
+     * @param startY  Y of the initial log block
+     * @param startZ  Z of the initial log block
+     * @param logType The type of log to scan for
+     * @return TreeScan containing packed scan results
+     */
+    public TreeScan scan(BlockSource source, int startX, int startY, int startZ, Material logType) {
+        LongHashSet logs = new LongHashSet();
+        Map<Long, Material> potentialStructureBlocks = new HashMap<>();
+        LongQueue queue = new LongQueue();
+        LongHashSet visited = new LongHashSet(256);
 
-        int maxSize = config.getMaxTreeSize();
-        int leafRadius = config.getLeafSearchRadius();
-        int treehouseRadius = config.getTreehouseCheckRadius();
-        Set<Material> validLeaves = MaterialUtil.getValidLeaves(logType);
+        // One settings snapshot for the whole scan (a reload can't change it halfway)
+        Settings settings = config.getSettings();
+        int maxSize = settings.maxTreeSize();
+        int leafRadius = settings.leafSearchRadius();
+        int treehouseRadius = settings.treehouseCheckRadius();
+        boolean checkHorizontal = settings.checkHorizontalLogs();
+        boolean checkMixed = settings.checkMixedLogs();
+        int woodFamily = MaterialUtil.getWoodFamily(logType);
         
         boolean hasHorizontalLogs = false;
-        boolean hasMixedTypes = false;
+        boolean hasLogsAbove = false;
+        int blocksRead = 0;
+        String failReason = null;
+        
+        // Scan budget: stop once too many blocks were read or the time is up
+        long scanStart = System.nanoTime();
+        long maxReads = settings.scanMaxReads() > 0 ? settings.scanMaxReads() : Long.MAX_VALUE;
+        long deadline = settings.scanMaxNanos() > 0 ? scanStart + settings.scanMaxNanos() : Long.MAX_VALUE;
         
         // Track starting position for horizontal spread limit
-        int startX = startBlock.getX();
-        int startZ = startBlock.getZ();
+        long startKey = BlockKey.pack(startX, startY, startZ);
         
-        queue.add(startBlock);
-        visited.add(startBlock);
+        queue.add(startKey);
+        visited.add(startKey);
         
-        // BFS to find all connected logs
+        // Stage 1: BFS to find all connected logs
         while (!queue.isEmpty() && logs.size() < maxSize) {
-            Block current = queue.poll();
-            Material currentType = current.getType();
+            if (blocksRead > maxReads || System.nanoTime() > deadline) {
+                failReason = REASON_SCAN_BUDGET;
+                break;
+            }
+            long current = queue.poll();
+            int x = BlockKey.x(current);
+            int y = BlockKey.y(current);
+            int z = BlockKey.z(current);
+            Material currentType = source.getType(x, y, z);
+            blocksRead++;
             
             if (MaterialUtil.isLogBlock(currentType)) {
-                // Check if same wood type
-                if (!MaterialUtil.isSameWoodType(currentType, logType)) {
-                    hasMixedTypes = true;
+                // Mixed wood types are a structure, no later stage can change that
+                if (checkMixed && MaterialUtil.getWoodFamily(currentType) != woodFamily) {
+                    failReason = REASON_MIXED_LOGS;
+                    break;
                 }
                 
-                // Check for horizontal placement (potential structure)
-                if (config.checkHorizontalLogs() && isHorizontalLog(current)) {
+                // Check for horizontal placement (potential structure, decided once leaves are counted)
+                if (checkHorizontal && !hasHorizontalLogs && isHorizontalLog(source, x, y, z)) {
                     hasHorizontalLogs = true;
                 }
                 
+                if (y > startY) {
+                    hasLogsAbove = true;
+                }
+                
                 logs.add(current);
                 
                 // Check neighbors - but limit horizontal spread to prevent connecting adjacent trees
                 // Prioritize upward connections (natural tree growth)
                 for (int dx = -1; dx <= 1; dx++) {
+                    int nx = x + dx;
+                    // Check horizontal spread limit
+                    if (Math.abs(nx - startX) > MAX_HORIZONTAL_SPREAD) continue;
+                    
                     for (int dy = -1; dy <= 1; dy++) {
+                        int ny = y + dy;
                         for (int dz = -1; dz <= 1; dz++) {
                             if (dx == 0 && dy == 0 && dz == 0) continue;
                             
-                            Block neighbor = current.getRelative(dx, dy, dz);
+                            int nz = z + dz;
+                            if (Math.abs(nz - startZ) > MAX_HORIZONTAL_SPREAD) continue;
                             
-                            // Check horizontal spread limit
-                            int horizDistX = Math.abs(neighbor.getX() - startX);
-                            int horizDistZ = Math.abs(neighbor.getZ() - startZ);
-                            if (horizDistX > MAX_HORIZONTAL_SPREAD || horizDistZ > MAX_HORIZONTAL_SPREAD) {
-                                continue; // Skip blocks too far horizontally
-                            }
-                            
-                            if (!visited.contains(neighbor)) {
-                                visited.add(neighbor);
-                                Material neighborType = neighbor.getType();
+                            long neighbor = BlockKey.pack(nx, ny, nz);
+                            if (visited.add(neighbor)) {
+                                Material neighborType = source.getType(nx, ny, nz);
+                                blocksRead++;
                                 
                                 if (MaterialUtil.isLogBlock(neighborType) && 
-                                    MaterialUtil.isSameWoodType(neighborType, logType)) {
+                                    MaterialUtil.getWoodFamily(neighborType) == woodFamily) {
                                     queue.add(neighbor);
                                 }
                             }
@@ -110,204 +280,157 @@ public class TreeDetector {
                 }
             }
         }
+        long logsDone = System.nanoTime();
         
-        // Find associated leaves - only include leaves that "belong" to this tree
-        // A leaf belongs to this tree if the nearest log is from our tree
-        Set<Block> candidateLeaves = new HashSet<>();
-
-        // First, collect all candidate leaves around our logs
-        for (Block log : logs) {
-            for (int dx = -leafRadius; dx <= leafRadius; dx++) {
-                for (int dy = -leafRadius; dy <= leafRadius; dy++) {
-                    for (int dz = -leafRadius; dz <= leafRadius; dz++) {
-                        Block potential = log.getRelative(dx, dy, dz);
-                        if (validLeaves.contains(potential.getType())) {
-                            candidateLeaves.add(potential);
-                        }
-                    }
-                }
+        // Stage 2: checks that only need the logs
+        if (failReason == null) {
+            if (logs.size() < settings.minLogs()) {
+                failReason = REASON_MIN_LOGS;
             }
-        }
-
-        // Now filter: only keep leaves whose nearest log is from our tree
-        for (Block leaf : candidateLeaves) {
-            if (isLeafBelongingToTree(leaf, logs, logType, startX, startZ)) {
-                leaves.add(leaf);
+            // Natural trees grow upward, structure columns typically don't have logs directly above
+            else if (!hasLogsAbove && logs.size() > 1) {
+                failReason = REASON_NO_LOGS_ABOVE;
             }
         }
-
-        // Collect potential structure blocks around logs (for async treehouse check)
-        // This is done on region thread so block.getType() is safe
-        if (config.checkTreehouse()) {
-            Set<Block> checkedBlocks = new HashSet<>();
-            for (Block log : logs) {
-                for (int dx = -treehouseRadius; dx <= treehouseRadius; dx++) {
-                    for (int dy = -treehouseRadius; dy <= treehouseRadius; dy++) {
-                        for (int dz = -treehouseRadius; dz <= treehouseRadius; dz++) {
-                            if (dx == 0 && dy == 0 && dz == 0) continue;
-
-                            Block nearby = log.getRelative(dx, dy, dz);
-                            if (checkedBlocks.contains(nearby)) continue;
-                            checkedBlocks.add(nearby);
-
-                            Material type = nearby.getType();
-
-                            // Skip air, logs, and leaves
-                            if (type.isAir()) continue;
-                            if (MaterialUtil.isLogBlock(type)) continue;
-                            if (MaterialUtil.isLeafBlock(type)) continue;
-
-                            // Check if this is a structure block
-                            if (isStructureBlock(type)) {
-                                potentialStructureBlocks.put(nearby, type);
-                            }
-                        }
-                    }
+        
+        // Stage 3: find associated leaves - only include leaves that "belong" to this tree
+        // A leaf belongs to this tree if the nearest log is from our tree
+        LongHashSet leaves = new LongHashSet();
+        if (failReason == null) {
+            // Horizontal logs are fine on trees with many leaves (natural branches)
+            int leafTarget = hasHorizontalLogs
+                    ? Math.max(settings.minLeaves(), HORIZONTAL_BRANCH_MIN_LEAVES)
+                    : settings.minLeaves();
+            
+            // Leaves touching our logs are owned for sure; if there are enough, skip the window
+            if (!settings.breakLeaves()) {
+                blocksRead += LeafOwnership.findAdjacentLeaves(source, logs, woodFamily, leafRadius,
+                        startX, startZ, MAX_HORIZONTAL_SPREAD + leafRadius, leafTarget, leaves);
+            }
+            if (settings.breakLeaves() || leaves.size() < leafTarget) {
+                // The full pass reads its whole window (minus empty sections), so check the budget first
+                long leafReads = LeafOwnership.windowReads(source, logs, leafRadius);
+                if (blocksRead + leafReads > maxReads || System.nanoTime() > deadline) {
+                    failReason = REASON_SCAN_BUDGET;
+                } else {
+                    leaves = LeafOwnership.findLeaves(source, logs, woodFamily, leafRadius,
+                            startX, startZ, MAX_HORIZONTAL_SPREAD + leafRadius);
+                    blocksRead += (int) Math.min(Integer.MAX_VALUE, leafReads);
                 }
             }
         }
+        long leavesDone = System.nanoTime();
         
-        // Validate if this is a natural tree
-        String failReason = null;
-        boolean isNatural = true;
-
-        // Check minimum logs first (higher priority)
-        if (logs.size() < config.getMinLogs()) {
-            isNatural = false;
-            failReason = REASON_MIN_LOGS;
-        }
-        // Check minimum leaves
-        else if (leaves.size() < config.getMinLeaves()) {
-            isNatural = false;
-            failReason = REASON_MIN_LEAVES;
-        }
-        // Check for horizontal logs (structure indicator)
-        // BUT: If tree has many leaves (50+), horizontal logs are likely natural branches
-        else if (config.checkHorizontalLogs() && hasHorizontalLogs && leaves.size() < 50) {
-            isNatural = false;
-            failReason = REASON_HORIZONTAL;
-        }
-        // Check for mixed log types (structure indicator)
-        else if (config.checkMixedLogs() && hasMixedTypes) {
-            isNatural = false;
-            failReason = REASON_MIXED_LOGS;
-        }
-        // Check if there are logs ABOVE the starting block
-        // Natural trees grow upward, structure columns typically don't have logs directly above
-        else {
-            boolean hasLogsAbove = false;
-            int startY = startBlock.getY();
-            for (Block log : logs) {
-                if (log.getY() > startY) {
-                    hasLogsAbove = true;
-                    break;
-                }
+        // Stage 4: checks that need the leaf count
+        if (failReason == null) {
+            if (leaves.size() < settings.minLeaves()) {
+                failReason = REASON_MIN_LEAVES;
             }
-
-            if (!hasLogsAbove && logs.size() > 1) {
-                isNatural = false;
-                failReason = REASON_NO_LOGS_ABOVE;
+            // Horizontal logs (structure indicator), unless the tree has many leaves
+            else if (hasHorizontalLogs && leaves.size() < HORIZONTAL_BRANCH_MIN_LEAVES) {
+                failReason = REASON_HORIZONTAL;
             }
         }
 
-        return new TreeData(logs, leaves, potentialStructureBlocks, isNatural, failReason);
-    }
-
-    /**
-     * Check if a log block is placed horizontally.
-     */
-    private boolean isHorizontalLog(Block block) {
-        if (block.getBlockData() instanceof Orientable orientable) {
-            Axis axis = orientable.getAxis();
-            // Y axis = vertical (natural), X or Z = horizontal (structure)
-            return axis == Axis.X || axis == Axis.Z;
-        }
-        return false;
-    }
-
-    /**
-     * Check if a material is a typical structure/building block.
-     */
-    private boolean isStructureBlock(Material material) {
-        // Check explicit list
-        if (STRUCTURE_BLOCKS.contains(material)) {
-            return true;
+        // Stage 5: collect potential structure blocks around logs (for async treehouse check)
+        if (failReason == null && settings.checkTreehouse()) {
+            LongHashSet checkedBlocks = new LongHashSet();
+            for (long log : logs.toArray()) {
+                if (blocksRead > maxReads || System.nanoTime() > deadline) {
+                    failReason = REASON_SCAN_BUDGET;
+                    break;
+                }
+                int lx = BlockKey.x(log);
+                int ly = BlockKey.y(log);
+                int lz = BlockKey.z(log);
+                // Sweep the cube around the log one section at a time, skipping empty sections
+                for (int sy = (ly - treehouseRadius) >> 4; sy <= (ly + treehouseRadius) >> 4; sy++) {
+                    for (int sz = (lz - treehouseRadius) >> 4; sz <= (lz + treehouseRadius) >> 4; sz++) {
+                        for (int sx = (lx - treehouseRadius) >> 4; sx <= (lx + treehouseRadius) >> 4; sx++) {
+                            if (source.isSectionEmpty(sx, sy, sz)) continue;
+                            blocksRead += sweepStructureBlocks(source, lx, ly, lz, treehouseRadius, sx, sy, sz,
+                                    checkedBlocks, potentialStructureBlocks);
+                        }
+                    }
+                }
+            }
         }
+        long structuresDone = System.nanoTime();
 
-        // Check by name patterns
-        String name = material.name();
-        return name.contains("PLANK") ||
-               name.contains("SLAB") ||
-               name.contains("STAIR") ||
-               name.contains("FENCE") ||
-               name.contains("DOOR") ||
-               name.contains("TRAPDOOR") ||
-               name.contains("WOOL") ||
-               name.contains("CARPET") ||
-               name.contains("BED") ||
-               name.contains("GLASS") ||
-               name.contains("SIGN") ||
-               name.contains("BANNER");
+        TreeScan.Timings timings = new TreeScan.Timings(logsDone - scanStart, leavesDone - logsDone,
+                structuresDone - leavesDone);
+        return new TreeScan(logs, leaves, potentialStructureBlocks, failReason == null, failReason, blocksRead, timings);
     }
-
+    
     /**
-     * Check if a leaf block belongs to this tree.
-     * A leaf belongs to this tree if:
-     * 1. The nearest log (within search radius) is from our tree
-     * 2. There's no closer log from another tree
+     * Collect structure blocks in the part of the cube around a log that lies in one section.
+     *
+     * @return Number of blocks read
      */
-    private boolean isLeafBelongingToTree(Block leaf, Set<Block> ourLogs, Material ourLogType, int treeStartX, int treeStartZ) {
-        int leafX = leaf.getX();
-        int leafY = leaf.getY();
-        int leafZ = leaf.getZ();
-
-        // Find the nearest log to this leaf (search in a radius)
-        int searchRadius = config.getLeafSearchRadius();
-        Block nearestLog = null;
-        double nearestDistSq = Double.MAX_VALUE;
-        boolean nearestIsOurs = false;
+    private static int sweepStructureBlocks(BlockSource source, int lx, int ly, int lz, int radius,
+                                            int sx, int sy, int sz, LongHashSet checkedBlocks,
+                                            Map<Long, Material> potentialStructureBlocks) {
+        int reads = 0;
+        int maxX = Math.min(lx + radius, (sx << 4) + 15);
+        int maxY = Math.min(ly + radius, (sy << 4) + 15);
+        int maxZ = Math.min(lz + radius, (sz << 4) + 15);
+        for (int nx = Math.max(lx - radius, sx << 4); nx <= maxX; nx++) {
+            for (int ny = Math.max(ly - radius, sy << 4); ny <= maxY; ny++) {
+                for (int nz = Math.max(lz - radius, sz << 4); nz <= maxZ; nz++) {
+                    if (nx == lx && ny == ly && nz == lz) continue;
+                    if (!checkedBlocks.add(BlockKey.pack(nx, ny, nz))) continue;
 
-        for (int dx = -searchRadius; dx <= searchRadius; dx++) {
-            for (int dy = -searchRadius; dy <= searchRadius; dy++) {
-                for (int dz = -searchRadius; dz <= searchRadius; dz++) {
-                    Block potential = leaf.getRelative(dx, dy, dz);
-                    Material potType = potential.getType();
+                    Material type = source.getType(nx, ny, nz);
+                    reads++;
 
-                    if (!MaterialUtil.isLogBlock(potType)) continue;
+                    // Skip air, logs, and leaves
+                    if (type.isAir()) continue;
+                    if (MaterialUtil.isLogBlock(type)) continue;
+                    if (MaterialUtil.isLeafBlock(type)) continue;
 
-                    double distSq = dx * dx + dy * dy + dz * dz;
-
-                    if (distSq < nearestDistSq) {
-                        nearestDistSq = distSq;
-                        nearestLog = potential;
-                        nearestIsOurs = ourLogs.contains(potential);
-                    } else if (distSq == nearestDistSq && !nearestIsOurs) {
-                        // If same distance, prefer our log
-                        if (ourLogs.contains(potential)) {
-                            nearestLog = potential;
-                            nearestIsOurs = true;
-                        }
+                    // Check if this is a structure block
+                    if (MaterialUtil.isStructureBlock(type)) {
+                        potentialStructureBlocks.put(BlockKey.pack(nx, ny, nz), type);
                     }
                 }
             }
         }
-
-        // If no log found nearby, don't include this leaf
-        if (nearestLog == null) {
-            return false;
-        }
-
-        // Only include if nearest log is ours
-        if (!nearestIsOurs) {
-            return false;
+        return reads;
+    }
+    
+    /**
+     * Log a structured report for a scan that ran out of budget (rate limited).
+     */
+    private void reportSlowScan(String worldName, int x, int y, int z, TreeScan scan) {
+        long now = System.nanoTime();
+        long last = lastSlowScanReport.get();
+        if (now - last < SLOW_SCAN_REPORT_INTERVAL || !lastSlowScanReport.compareAndSet(last, now)) {
+            suppressedSlowScans.incrementAndGet();
+            return;
         }
+        
+        Settings settings = config.getSettings();
+        TreeScan.Timings timings = scan.timings();
+        int suppressed = suppressedSlowScans.getAndSet(0);
+        logger.warning(String.format(Locale.ROOT,
+                "Slow scan aborted: world=%s x=%d y=%d z=%d logs=%d leaves=%d structureBlocks=%d blocksRead=%d"
+                        + " time=%.2fms (logs=%.2fms leaves=%.2fms treehouse=%.2fms)"
+                        + " budget=%d reads/%.2fms leafRadius=%d treehouseRadius=%d%s",
+                worldName, x, y, z, scan.logs().size(), scan.leaves().size(),
+                scan.potentialStructureBlocks().size(), scan.blocksRead(),
+                timings.totalNanos() / 1e6, timings.logsNanos() / 1e6,
+                timings.leavesNanos() / 1e6, timings.structuresNanos() / 1e6,
+                settings.scanMaxReads(), settings.scanMaxNanos() / 1e6,
+                settings.leafSearchRadius(), settings.checkTreehouse() ? settings.treehouseCheckRadius() : 0,
+                suppressed > 0 ? " (+" + suppressed + " more since last report)" : ""));
+    }
 
-        // Additional check: leaf shouldn't be too far horizontally from tree center
-        // This prevents edge cases where our log is technically nearest but leaf is very far
-        int horizDistX = Math.abs(leafX - treeStartX);
-        int horizDistZ = Math.abs(leafZ - treeStartZ);
-        int maxLeafSpread = MAX_HORIZONTAL_SPREAD + searchRadius;
-
-        return horizDistX <= maxLeafSpread && horizDistZ <= maxLeafSpread;
+    /**
+     * Check if a log block is placed horizontally.
+     */
+    private boolean isHorizontalLog(BlockSource source, int x, int y, int z) {
+        Axis axis = source.getAxis(x, y, z);
+        // Y axis = vertical (natural), X or Z = horizontal (structure)
+        return axis == Axis.X || axis == Axis.Z;
     }
 }
@@ -0,0 +1,83 @@
+package com.can61cebi.foliatimber.tree;
+
+import com.can61cebi.foliatimber.util.BlockKey;
+import com.can61cebi.foliatimber.util.LongHashSet;
+import com.can61cebi.foliatimber.util.MaterialUtil;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Raw tree scan result using packed block keys (see {@link BlockKey}).
+ * Holds no Block references, so it can be produced off the region thread
+ * and turned into {@link TreeData} once back on it.
+ *
+ * @param logs                     Packed keys of all connected logs
+ * @param leaves                   Packed keys of all associated leaves
+ * @param potentialStructureBlocks Packed key -> material of nearby structure blocks
+ * @param isNaturalTree            Whether this appears to be a natural tree
+ * @param failReason               If not natural, reason why (null if natural)
+ * @param blocksRead               Number of block reads the scan made
+ * @param timings                  Time spent in each scan stage
+ */
+public record TreeScan(
+    LongHashSet logs,
+    LongHashSet leaves,
+    Map<Long, Material> potentialStructureBlocks,
+    boolean isNaturalTree,
+    String failReason,
+    int blocksRead,
+    Timings timings
+) {
+    /**
+     * Nanoseconds spent finding logs, assigning leaves and sweeping for structure blocks.
+     */
+    public record Timings(long logsNanos, long leavesNanos, long structuresNanos) {
+        public long totalNanos() {
+            return logsNanos + leavesNanos + structuresNanos;
+        }
+    }
+
+    /**
+     * Convert to TreeData with Block objects for the given world.
+     * Must be called on the region thread when {@code recheck} is true.
+     *
+     * @param recheck Drop blocks that changed since the scan (used for snapshot scans)
+     */
+    public TreeData toTreeData(World world, boolean recheck) {
+        Set<Block> logBlocks = new HashSet<>(Math.max(16, logs.size() * 2));
+        logs.forEach(key -> {
+            Block block = blockAt(world, key);
+            if (!recheck || MaterialUtil.isLogBlock(block.getType())) {
+                logBlocks.add(block);
+            }
+        });
+
+        Set<Block> leafBlocks = new HashSet<>(Math.max(16, leaves.size() * 2));
+        leaves.forEach(key -> {
+            Block block = blockAt(world, key);
+            if (!recheck || MaterialUtil.isLeafBlock(block.getType())) {
+                leafBlocks.add(block);
+            }
+        });
+
+        Map<Block, Material> structureBlocks = new HashMap<>();
+        for (Map.Entry<Long, Material> entry : potentialStructureBlocks.entrySet()) {
+            Block block = blockAt(world, entry.getKey());
+            if (!recheck || block.getType() == entry.getValue()) {
+                structureBlocks.put(block, entry.getValue());
+            }
+        }
+
+        return new TreeData(logBlocks, leafBlocks, structureBlocks, isNaturalTree, failReason);
+    }
+
+    private static Block blockAt(World world, long key) {
+        return world.getBlockAt(BlockKey.x(key), BlockKey.y(key), BlockKey.z(key));
+    }
+}
@@ -0,0 +1,372 @@
+package com.can61cebi.foliatimber.tree;
+
+import com.can61cebi.foliatimber.config.SettingsSource;
+import com.can61cebi.foliatimber.util.BlockKey;
+import com.can61cebi.foliatimber.util.LongHashSet;
+import com.can61cebi.foliatimber.util.LongQueue;
+import org.bukkit.World;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Short-lived cache of tree scans, found by any log of the scanned tree.
+ * Each entry remembers the chunk sections (16x16x16) its scan read; a block change
+ * in one of them drops the entry, so repeated chops on an unchanged tree skip the BFS
+ * and leaf search. The first change at one of the tree's own logs is its removal
+ * (e.g. the break that started the scan): the entry is kept, and reused only while the
+ * remaining logs are still connected to the chopped log the way a fresh scan would find them.
+ *
+ * Block events of every region thread invalidate this cache, so it takes no global lock:
+ * the indexes are concurrent maps and each entry guards its own removed logs.
+ */
+public class TreeScanCache {
+    
+    private final SettingsSource config;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    
+    private final Map<ScanKey, Entry> entries = new ConcurrentHashMap<>();
+    
+    // Section -> scans that read it
+    private final Map<SectionKey, Set<Entry>> bySection = new ConcurrentHashMap<>();
+    
+    // Log position -> scan containing it
+    private final Map<ScanKey, Entry> byLog = new ConcurrentHashMap<>();
+    
+    // Chunk column -> async scans in flight that may read it
+    private final Map<SectionKey, Set<Ticket>> pendingByColumn = new ConcurrentHashMap<>();
+    
+    public TreeScanCache(SettingsSource config) {
+        this.config = config;
+    }
+    
+    public boolean isEnabled() {
+        return config.getSettings().scanCacheSize() > 0;
+    }
+    
+    /**
+     * Get a cached scan containing the given log.
+     *
+     * @return The scan, or null on a miss, an expired entry or a tree split by removed logs
+     */
+    public TreeScan get(World world, int x, int y, int z) {
+        if (!isEnabled()) return null;
+        
+        long start = BlockKey.pack(x, y, z);
+        Entry entry = byLog.get(new ScanKey(world.getUID(), start));
+        if (entry == null || entry.expiresAt - System.nanoTime() <= 0 || !entry.isConnected(start)) {
+            if (entry != null) {
+                remove(entry);
+            }
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.scan;
+    }
+    
+    /**
+     * Cache a scan that read the live world on the region thread.
+     *
+     * @param reach How far (blocks) beyond the logs the scan read
+     */
+    public void put(World world, int x, int y, int z, TreeScan scan, int reach) {
+        put(world.getUID(), x, y, z, scan, reach, false);
+    }
+    
+    /**
+     * @param startRemoved Whether the start block was already removed (its change is not an invalidation)
+     * @return The cached entry, or null if caching is disabled
+     */
+    private Entry put(UUID world, int x, int y, int z, TreeScan scan, int reach, boolean startRemoved) {
+        if (!isEnabled()) return null;
+        
+        ScanKey key = new ScanKey(world, BlockKey.pack(x, y, z));
+        long expiresAt = System.nanoTime() + TimeUnit.SECONDS.toNanos(config.getSettings().scanCacheTtl());
+        Entry entry = new Entry(key, scan, coveredSections(world, scan, x, y, z, reach), expiresAt);
+        if (startRemoved && scan.logs().contains(key.start())) {
+            entry.removedLogs.add(key.start());
+        }
+        
+        Entry old = entries.put(key, entry);
+        if (old != null) {
+            unindex(old);
+        }
+        for (SectionKey section : entry.sections) {
+            bySection.compute(section, (s, set) -> {
+                if (set == null) set = ConcurrentHashMap.newKeySet();
+                set.add(entry);
+                return set;
+            });
+        }
+        scan.logs().forEach(log -> byLog.put(new ScanKey(world, log), entry));
+        
+        evictIfFull();
+        return entry;
+    }
+    
+    /**
+     * Keep the cache within its size: drop expired entries, then the oldest ones.
+     */
+    private void evictIfFull() {
+        int max = config.getSettings().scanCacheSize();
+        if (entries.size() <= max) return;
+        
+        long now = System.nanoTime();
+        for (Entry entry : entries.values()) {
+            if (entry.expiresAt - now <= 0) remove(entry);
+        }
+        while (entries.size() > max) {
+            Entry oldest = null;
+            for (Entry entry : entries.values()) {
+                if (oldest == null || entry.expiresAt - oldest.expiresAt < 0) oldest = entry;
+            }
+            if (oldest == null) return;
+            remove(oldest);
+        }
+    }
+    
+    /**
+     * Register an async scan before its snapshot is taken. Block changes in the window
+     * until {@link #complete} mark the ticket dirty, so a stale result is never cached.
+     *
+     * @param radius Horizontal radius of the snapshot window
+     */
+    public Ticket reserve(World world, int x, int y, int z, int radius) {
+        Ticket ticket = new Ticket(world, x, y, z);
+        if (!isEnabled()) return ticket;
+        
+        for (int cx = (x - radius) >> 4; cx <= (x + radius) >> 4; cx++) {
+            for (int cz = (z - radius) >> 4; cz <= (z + radius) >> 4; cz++) {
+                SectionKey column = new SectionKey(world.getUID(), BlockKey.pack(cx, 0, cz));
+                ticket.columns.add(column);
+                pendingByColumn.compute(column, (c, tickets) -> {
+                    if (tickets == null) tickets = ConcurrentHashMap.newKeySet();
+                    tickets.add(ticket);
+                    return tickets;
+                });
+            }
+        }
+        return ticket;
+    }
+    
+    /**
+     * Finish an async scan: cache it unless the window changed meanwhile.
+     * The entry is indexed before the dirty check and the ticket released after it,
+     * so a concurrent change either marks the ticket or finds the entry.
+     */
+    public void complete(Ticket ticket, TreeScan scan, int reach) {
+        if (scan != null && !ticket.dirty) {
+            Entry entry = put(ticket.world.getUID(), ticket.x, ticket.y, ticket.z, scan, reach, ticket.startRemoved);
+            if (entry != null && ticket.dirty) {
+                remove(entry);
+            }
+        }
+        
+        for (SectionKey column : ticket.columns) {
+            pendingByColumn.computeIfPresent(column, (c, tickets) -> {
+                tickets.remove(ticket);
+                return tickets.isEmpty() ? null : tickets;
+            });
+        }
+    }
+    
+    /**
+     * Drop every scan that read the section containing a changed block,
+     * except scans for which it is the first change at one of their own logs.
+     */
+    public void invalidate(World world, int x, int y, int z) {
+        if (entries.isEmpty() && pendingByColumn.isEmpty()) return;
+        
+        UUID worldId = world.getUID();
+        long changed = BlockKey.pack(x, y, z);
+        Set<Ticket> tickets = pendingByColumn.get(new SectionKey(worldId, BlockKey.pack(x >> 4, 0, z >> 4)));
+        if (tickets != null) {
+            for (Ticket ticket : tickets) {
+                ticket.blockChanged(changed);
+            }
+        }
+        
+        Set<Entry> scans = bySection.get(new SectionKey(worldId, BlockKey.pack(x >> 4, y >> 4, z >> 4)));
+        if (scans == null) return;
+        for (Entry entry : scans) {
+            if (!entry.logRemoved(changed)) {
+                remove(entry);
+            }
+        }
+    }
+    
+    /**
+     * Drop all scans (config reload changes scan rules).
+     */
+    public void clear() {
+        for (Entry entry : entries.values()) {
+            remove(entry);
+        }
+        for (Set<Ticket> tickets : pendingByColumn.values()) {
+            for (Ticket ticket : tickets) {
+                ticket.dirty = true;
+            }
+        }
+    }
+    
+    public int size() {
+        return entries.size();
+    }
+    
+    public long getHits() {
+        return hits.sum();
+    }
+    
+    public long getMisses() {
+        return misses.sum();
+    }
+    
+    private void remove(Entry entry) {
+        if (entries.remove(entry.key, entry)) {
+            unindex(entry);
+        }
+    }
+    
+    private void unindex(Entry entry) {
+        for (SectionKey section : entry.sections) {
+            bySection.computeIfPresent(section, (s, set) -> {
+                set.remove(entry);
+                return set.isEmpty() ? null : set;
+            });
+        }
+        // Logs taken over by a newer scan stay with that scan
+        entry.scan.logs().forEach(log -> byLog.remove(new ScanKey(entry.key.world(), log), entry));
+    }
+    
+    /**
+     * Sections of the logs' bounding box grown by the scan reach.
+     */
+    private static List<SectionKey> coveredSections(UUID world, TreeScan scan, int x, int y, int z, int reach) {
+        int[] box = {x, y, z, x, y, z};
+        scan.logs().forEach(log -> {
+            box[0] = Math.min(box[0], BlockKey.x(log));
+            box[1] = Math.min(box[1], BlockKey.y(log));
+            box[2] = Math.min(box[2], BlockKey.z(log));
+            box[3] = Math.max(box[3], BlockKey.x(log));
+            box[4] = Math.max(box[4], BlockKey.y(log));
+            box[5] = Math.max(box[5], BlockKey.z(log));
+        });
+        
+        List<SectionKey> sections = new ArrayList<>();
+        for (int sx = (box[0] - reach) >> 4; sx <= (box[3] + reach) >> 4; sx++) {
+            for (int sy = (box[1] - reach) >> 4; sy <= (box[4] + reach) >> 4; sy++) {
+                for (int sz = (box[2] - reach) >> 4; sz <= (box[5] + reach) >> 4; sz++) {
+                    sections.add(new SectionKey(world, BlockKey.pack(sx, sy, sz)));
+                }
+            }
+        }
+        return sections;
+    }
+    
+    private record ScanKey(UUID world, long start) {}
+    
+    private record SectionKey(UUID world, long section) {}
+    
+    /**
+     * A cached scan (compared by identity, so a replaced entry never unindexes its successor).
+     */
+    private static final class Entry {
+        private final ScanKey key;
+        private final TreeScan scan;
+        private final List<SectionKey> sections;
+        private final long expiresAt;
+        // Logs of the scan changed since (guarded by this entry)
+        private final LongHashSet removedLogs = new LongHashSet();
+        
+        private Entry(ScanKey key, TreeScan scan, List<SectionKey> sections, long expiresAt) {
+            this.key = key;
+            this.scan = scan;
+            this.sections = sections;
+            this.expiresAt = expiresAt;
+        }
+        
+        /**
+         * Record a change at one of the scan's logs.
+         *
+         * @return true if the entry stays: first change at one of its logs, and some logs are left
+         */
+        synchronized boolean logRemoved(long changed) {
+            return scan.logs().contains(changed) && removedLogs.add(changed)
+                    && removedLogs.size() < scan.logs().size();
+        }
+        
+        /**
+         * Check that a scan from {@code start} would still find exactly the remaining logs:
+         * the same neighbour and spread rules as the detector's BFS, over the cached logs only.
+         */
+        synchronized boolean isConnected(long start) {
+            if (removedLogs.isEmpty()) return true;
+            if (removedLogs.contains(start)) return false;
+            
+            int startX = BlockKey.x(start);
+            int startZ = BlockKey.z(start);
+            LongHashSet reached = new LongHashSet(scan.logs().size());
+            LongQueue queue = new LongQueue();
+            reached.add(start);
+            queue.add(start);
+            while (!queue.isEmpty()) {
+                long current = queue.poll();
+                int x = BlockKey.x(current);
+                int y = BlockKey.y(current);
+                int z = BlockKey.z(current);
+                for (int dx = -1; dx <= 1; dx++) {
+                    int nx = x + dx;
+                    if (Math.abs(nx - startX) > TreeDetector.MAX_HORIZONTAL_SPREAD) continue;
+                    for (int dy = -1; dy <= 1; dy++) {
+                        for (int dz = -1; dz <= 1; dz++) {
+                            int nz = z + dz;
+                            if (Math.abs(nz - startZ) > TreeDetector.MAX_HORIZONTAL_SPREAD) continue;
+                            long neighbor = BlockKey.pack(nx, y + dy, nz);
+                            if (scan.logs().contains(neighbor) && !removedLogs.contains(neighbor) && reached.add(neighbor)) {
+                                queue.add(neighbor);
+                            }
+                        }
+                    }
+                }
+            }
+            return reached.size() == scan.logs().size() - removedLogs.size();
+        }
+    }
+    
+    /**
+     * An async scan in flight (see {@link #reserve}).
+     */
+    public static final class Ticket {
+        private final World world;
+        private final int x, y, z;
+        private final List<SectionKey> columns = new ArrayList<>();
+        private volatile boolean dirty;
+        private volatile boolean startRemoved;
+        
+        private Ticket(World world, int x, int y, int z) {
+            this.world = world;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+        
+        /**
+         * The break that started the scan happens after the snapshot was taken; any other change makes it dirty.
+         */
+        private synchronized void blockChanged(long changed) {
+            if (!startRemoved && BlockKey.pack(x, y, z) == changed) {
+                startRemoved = true;
+            } else {
+                dirty = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.can61cebi.foliatimber.tree;
+
+import org.bukkit.Axis;
+import org.bukkit.Material;
+
+import java.util.Arrays;
+
+/**
+ * Block source backed by an in-memory box of blocks.
+ * Stores material ordinals and axes in flat arrays, so it needs no server and reads
+ * allocate nothing; used to run the scanner in benchmarks and load tests.
+ * Non-air blocks are counted per 16x16x16 section, so section emptiness is exact.
+ * Blocks outside the box read as VOID_AIR. Not thread-safe for writes.
+ */
+public class VoxelGridBlockSource implements BlockSource {
+
+    private static final Material[] MATERIALS = Material.values();
+    private static final Axis[] AXES = Axis.values();
+
+    // Axis stored as ordinal + 1, 0 = no axis
+    private static final byte NO_AXIS = 0;
+
+    private final int minX;
+    private final int minY;
+    private final int minZ;
+    private final int sizeX;
+    private final int sizeY;
+    private final int sizeZ;
+
+    private final short[] types;
+    private final byte[] axes;
+
+    // Non-air blocks per section overlapping the grid
+    private final int minSectionX;
+    private final int minSectionY;
+    private final int minSectionZ;
+    private final int sectionsX;
+    private final int sectionsY;
+    private final int sectionsZ;
+    private final int[] sectionBlocks;
+
+    /**
+     * Create an empty (all air) grid covering [min, min + size) on each axis.
+     */
+    public VoxelGridBlockSource(int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ) {
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.sizeZ = sizeZ;
+        this.types = new short[sizeX * sizeY * sizeZ];
+        this.axes = new byte[types.length];
+        this.minSectionX = minX >> 4;
+        this.minSectionY = minY >> 4;
+        this.minSectionZ = minZ >> 4;
+        this.sectionsX = ((minX + sizeX - 1) >> 4) - minSectionX + 1;
+        this.sectionsY = ((minY + sizeY - 1) >> 4) - minSectionY + 1;
+        this.sectionsZ = ((minZ + sizeZ - 1) >> 4) - minSectionZ + 1;
+        this.sectionBlocks = new int[sectionsX * sectionsY * sectionsZ];
+        if (Material.AIR.ordinal() != 0) {
+            Arrays.fill(types, (short) Material.AIR.ordinal());
+        }
+    }
+
+    /**
+     * Copy a box out of another source (e.g. a snapshot window captured from a live server).
+     */
+    public static VoxelGridBlockSource copyOf(BlockSource source, int minX, int minY, int minZ,
+                                              int sizeX, int sizeY, int sizeZ) {
+        VoxelGridBlockSource grid = new VoxelGridBlockSource(minX, minY, minZ, sizeX, sizeY, sizeZ);
+        for (int y = minY; y < minY + sizeY; y++) {
+            for (int z = minZ; z < minZ + sizeZ; z++) {
+                for (int x = minX; x < minX + sizeX; x++) {
+                    Material type = source.getType(x, y, z);
+                    grid.set(x, y, z, type, type.isAir() ? null : source.getAxis(x, y, z));
+                }
+            }
+        }
+        return grid;
+    }
+
+    public void set(int x, int y, int z, Material type) {
+        set(x, y, z, type, null);
+    }
+
+    /**
+     * Set a block and its axis (null for blocks without one).
+     *
+     * @throws IllegalArgumentException if the position is outside the grid
+     */
+    public void set(int x, int y, int z, Material type, Axis axis) {
+        int index = index(x, y, z);
+        if (index < 0) {
+            throw new IllegalArgumentException("Outside of grid: " + x + "," + y + "," + z);
+        }
+        boolean wasAir = MATERIALS[types[index]].isAir();
+        if (wasAir != type.isAir()) {
+            sectionBlocks[sectionIndex(x >> 4, y >> 4, z >> 4)] += wasAir ? 1 : -1;
+        }
+        types[index] = (short) type.ordinal();
+        axes[index] = axis == null ? NO_AXIS : (byte) (axis.ordinal() + 1);
+    }
+
+    public boolean contains(int x, int y, int z) {
+        return index(x, y, z) >= 0;
+    }
+
+    @Override
+    public Material getType(int x, int y, int z) {
+        int index = index(x, y, z);
+        return index < 0 ? Material.VOID_AIR : MATERIALS[types[index]];
+    }
+
+    @Override
+    public Axis getAxis(int x, int y, int z) {
+        int index = index(x, y, z);
+        if (index < 0 || axes[index] == NO_AXIS) return null;
+        return AXES[axes[index] - 1];
+    }
+
+    @Override
+    public boolean isSectionEmpty(int sectionX, int sectionY, int sectionZ) {
+        int index = sectionIndex(sectionX, sectionY, sectionZ);
+        return index < 0 || sectionBlocks[index] == 0;
+    }
+
+    private int sectionIndex(int sectionX, int sectionY, int sectionZ) {
+        int sx = sectionX - minSectionX;
+        int sy = sectionY - minSectionY;
+        int sz = sectionZ - minSectionZ;
+        if (sx < 0 || sy < 0 || sz < 0 || sx >= sectionsX || sy >= sectionsY || sz >= sectionsZ) return -1;
+        return (sy * sectionsZ + sz) * sectionsX + sx;
+    }
+
+    private int index(int x, int y, int z) {
+        int gx = x - minX;
+        int gy = y - minY;
+        int gz = z - minZ;
+        if (gx < 0 || gy < 0 || gz < 0 || gx >= sizeX || gy >= sizeY || gz >= sizeZ) return -1;
+        return (gy * sizeZ + gz) * sizeX + gx;
+    }
+}
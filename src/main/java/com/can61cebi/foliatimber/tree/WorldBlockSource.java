@@ -0,0 +1,72 @@
+package com.can61cebi.foliatimber.tree;
+
+import com.can61cebi.foliatimber.util.BlockKey;
+import org.bukkit.Axis;
+import org.bukkit.HeightMap;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.data.Orientable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Block source backed by the live world.
+ * Must only be used on the thread that owns the scanned region.
+ * Create one per scan: section emptiness is remembered for the lifetime of the instance.
+ */
+public class WorldBlockSource implements BlockSource {
+
+    private final World world;
+
+    // Highest non-air block per chunk (WORLD_SURFACE heightmap), filled on demand
+    private final Map<Long, Integer> chunkTops = new HashMap<>();
+
+    public WorldBlockSource(World world) {
+        this.world = world;
+    }
+
+    @Override
+    public Material getType(int x, int y, int z) {
+        return world.getType(x, y, z);
+    }
+
+    /**
+     * A section is empty if it lies above every column's highest non-air block.
+     */
+    @Override
+    public boolean isSectionEmpty(int sectionX, int sectionY, int sectionZ) {
+        if (sectionY << 4 >= world.getMaxHeight()) return true;
+        return sectionY << 4 > chunkTop(sectionX, sectionZ);
+    }
+
+    private int chunkTop(int chunkX, int chunkZ) {
+        long key = BlockKey.pack(chunkX, 0, chunkZ);
+        Integer top = chunkTops.get(key);
+        if (top == null) {
+            // Unloaded chunks are read like before (loaded by getType), never skipped
+            int max = world.getMaxHeight();
+            if (world.isChunkLoaded(chunkX, chunkZ)) {
+                max = world.getMinHeight() - 1;
+                int baseX = chunkX << 4;
+                int baseZ = chunkZ << 4;
+                for (int dx = 0; dx < 16; dx++) {
+                    for (int dz = 0; dz < 16; dz++) {
+                        max = Math.max(max, world.getHighestBlockYAt(baseX + dx, baseZ + dz, HeightMap.WORLD_SURFACE));
+                    }
+                }
+            }
+            top = max;
+            chunkTops.put(key, top);
+        }
+        return top;
+    }
+
+    @Override
+    public Axis getAxis(int x, int y, int z) {
+        if (world.getBlockData(x, y, z) instanceof Orientable orientable) {
+            return orientable.getAxis();
+        }
+        return null;
+    }
+}
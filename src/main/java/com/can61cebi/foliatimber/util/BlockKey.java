@@ -0,0 +1,42 @@
+package com.can61cebi.foliatimber.util;
+
+/**
+ * Packs block coordinates into a single long (same layout as Paper's block keys).
+ * Layout: x = bits 0-26, z = bits 27-53, y = bits 54-63 (all signed).
+ */
+public final class BlockKey {
+
+    private BlockKey() {}
+
+    /**
+     * Key that never maps to a real block (y = -512 is outside every world).
+     * Used as the empty marker in {@link LongHashSet}.
+     */
+    public static final long INVALID = Long.MIN_VALUE;
+
+    /**
+     * Pack block coordinates into a key.
+     */
+    public static long pack(int x, int y, int z) {
+        return ((long) x & 0x7FFFFFFL) | (((long) z & 0x7FFFFFFL) << 27) | ((long) y << 54);
+    }
+
+    public static int x(long key) {
+        return (int) ((key << 37) >> 37);
+    }
+
+    public static int y(long key) {
+        return (int) (key >> 54);
+    }
+
+    public static int z(long key) {
+        return (int) ((key << 10) >> 37);
+    }
+
+    /**
+     * Offset a key by the given deltas.
+     */
+    public static long offset(long key, int dx, int dy, int dz) {
+        return pack(x(key) + dx, y(key) + dy, z(key) + dz);
+    }
+}
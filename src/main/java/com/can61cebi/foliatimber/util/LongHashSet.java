@@ -0,0 +1,155 @@
+package com.can61cebi.foliatimber.util;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Open-addressing hash set of primitive longs (linear probing).
+ * Used for packed block keys so scans don't box or allocate per lookup.
+ * Not thread-safe.
+ */
+public final class LongHashSet {
+
+    private static final long EMPTY = BlockKey.INVALID;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] table;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    public LongHashSet() {
+        this(64);
+    }
+
+    public LongHashSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        this.table = new long[capacity];
+        Arrays.fill(table, EMPTY);
+        this.mask = capacity - 1;
+        this.resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Add a key.
+     * @return true if the key was not present before
+     */
+    public boolean add(long key) {
+        int i = mix(key) & mask;
+        long current;
+        while ((current = table[i]) != EMPTY) {
+            if (current == key) return false;
+            i = (i + 1) & mask;
+        }
+        table[i] = key;
+        if (++size >= resizeAt) {
+            rehash(table.length << 1);
+        }
+        return true;
+    }
+
+    public boolean contains(long key) {
+        int i = mix(key) & mask;
+        long current;
+        while ((current = table[i]) != EMPTY) {
+            if (current == key) return true;
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Remove a key (backward-shift deletion, no tombstones).
+     * @return true if the key was present
+     */
+    public boolean remove(long key) {
+        int i = mix(key) & mask;
+        long current;
+        while ((current = table[i]) != EMPTY) {
+            if (current == key) {
+                shiftDown(i);
+                size--;
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    private void shiftDown(int gap) {
+        int i = gap;
+        while (true) {
+            i = (i + 1) & mask;
+            long current = table[i];
+            if (current == EMPTY) break;
+            int home = mix(current) & mask;
+            // Move the entry back if its home slot is not between the gap and its position
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                table[gap] = current;
+                gap = i;
+            }
+        }
+        table[gap] = EMPTY;
+    }
+
+    private void rehash(int capacity) {
+        long[] old = table;
+        allocate(capacity);
+        for (long key : old) {
+            if (key == EMPTY) continue;
+            int i = mix(key) & mask;
+            while (table[i] != EMPTY) {
+                i = (i + 1) & mask;
+            }
+            table[i] = key;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        if (size == 0) return;
+        Arrays.fill(table, EMPTY);
+        size = 0;
+    }
+
+    /**
+     * Visit every key (iteration order is unspecified).
+     */
+    public void forEach(LongConsumer action) {
+        for (long key : table) {
+            if (key != EMPTY) {
+                action.accept(key);
+            }
+        }
+    }
+
+    /**
+     * Copy all keys into a new array.
+     */
+    public long[] toArray() {
+        long[] result = new long[size];
+        int n = 0;
+        for (long key : table) {
+            if (key != EMPTY) {
+                result[n++] = key;
+            }
+        }
+        return result;
+    }
+}
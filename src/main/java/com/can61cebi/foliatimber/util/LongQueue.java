@@ -0,0 +1,66 @@
+package com.can61cebi.foliatimber.util;
+
+/**
+ * Growable FIFO ring buffer of primitive longs.
+ * Not thread-safe.
+ */
+public final class LongQueue {
+
+    private long[] elements;
+    private int head;
+    private int tail;
+    private int size;
+
+    public LongQueue() {
+        this(64);
+    }
+
+    public LongQueue(int initialCapacity) {
+        this.elements = new long[Integer.highestOneBit(Math.max(8, initialCapacity) - 1) << 1];
+    }
+
+    public void add(long value) {
+        if (size == elements.length) {
+            grow();
+        }
+        elements[tail] = value;
+        tail = (tail + 1) & (elements.length - 1);
+        size++;
+    }
+
+    /**
+     * Remove and return the head of the queue.
+     * Callers must check {@link #isEmpty()} first.
+     */
+    public long poll() {
+        if (size == 0) {
+            throw new IllegalStateException("Queue is empty");
+        }
+        long value = elements[head];
+        head = (head + 1) & (elements.length - 1);
+        size--;
+        return value;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        head = tail = size = 0;
+    }
+
+    private void grow() {
+        long[] grown = new long[elements.length << 1];
+        int firstPart = elements.length - head;
+        System.arraycopy(elements, head, grown, 0, firstPart);
+        System.arraycopy(elements, 0, grown, firstPart, head);
+        head = 0;
+        tail = size;
+        elements = grown;
+    }
+}
@@ -2,13 +2,18 @@ package com.can61cebi.foliatimber.util;
 
 import org.bukkit.Material;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 /**
  * Utility class for material-related operations.
  * Contains all log/leaf mappings for Minecraft 1.21.
+ * All checks are array lookups into a table built once per Material ordinal.
  */
 public final class MaterialUtil {
     
@@ -52,6 +57,36 @@ public final class MaterialUtil {
         Material.GOLDEN_AXE, Material.DIAMOND_AXE, Material.NETHERITE_AXE
     );
     
+    // Block types that indicate a treehouse/structure when player-placed
+    public static final Set<Material> STRUCTURE_BLOCKS = EnumSet.of(
+        // Planks
+        Material.OAK_PLANKS, Material.SPRUCE_PLANKS, Material.BIRCH_PLANKS,
+        Material.JUNGLE_PLANKS, Material.ACACIA_PLANKS, Material.DARK_OAK_PLANKS,
+        Material.MANGROVE_PLANKS, Material.CHERRY_PLANKS, Material.BAMBOO_PLANKS,
+        Material.CRIMSON_PLANKS, Material.WARPED_PLANKS,
+        // Slabs
+        Material.OAK_SLAB, Material.SPRUCE_SLAB, Material.BIRCH_SLAB,
+        Material.JUNGLE_SLAB, Material.ACACIA_SLAB, Material.DARK_OAK_SLAB,
+        // Stairs
+        Material.OAK_STAIRS, Material.SPRUCE_STAIRS, Material.BIRCH_STAIRS,
+        Material.JUNGLE_STAIRS, Material.ACACIA_STAIRS, Material.DARK_OAK_STAIRS,
+        // Fences
+        Material.OAK_FENCE, Material.SPRUCE_FENCE, Material.BIRCH_FENCE,
+        Material.JUNGLE_FENCE, Material.ACACIA_FENCE, Material.DARK_OAK_FENCE,
+        // Ladders and torches
+        Material.LADDER, Material.TORCH, Material.WALL_TORCH,
+        // Glass
+        Material.GLASS, Material.GLASS_PANE,
+        // Doors and trapdoors
+        Material.OAK_DOOR, Material.SPRUCE_DOOR, Material.OAK_TRAPDOOR,
+        // Chests and crafting
+        Material.CHEST, Material.CRAFTING_TABLE, Material.FURNACE,
+        // Beds
+        Material.RED_BED, Material.WHITE_BED, Material.BLUE_BED,
+        // Wool and carpets (any color)
+        Material.WHITE_WOOL, Material.WHITE_CARPET
+    );
+    
     // Log type to corresponding leaf types mapping
     public static final Map<Material, Set<Material>> LOG_LEAF_MAP = Map.ofEntries(
         Map.entry(Material.OAK_LOG, Set.of(Material.OAK_LEAVES, Material.AZALEA_LEAVES, Material.FLOWERING_AZALEA_LEAVES)),
@@ -67,34 +102,138 @@ public final class MaterialUtil {
         Map.entry(Material.WARPED_STEM, Set.of(Material.WARPED_WART_BLOCK))
     );
     
+    // ========== Classification table (indexed by Material ordinal) ==========
+    
+    private static final int FLAG_LOG = 1;
+    private static final int FLAG_LEAF = 1 << 1;
+    private static final int FLAG_AXE = 1 << 2;
+    private static final int FLAG_WOOD = 1 << 3;
+    private static final int FLAG_STRUCTURE = 1 << 4;
+    
+    private static final Material[] MATERIALS = Material.values();
+    
+    // Per-material classification flags
+    private static final byte[] FLAGS = new byte[MATERIALS.length];
+    
+    // Per-material wood family id (materials with the same base wood type share an id)
+    private static final int[] WOOD_FAMILY = new int[MATERIALS.length];
+    
+    // Per-family base wood type name, valid leaves and valid leaves as an ordinal bitset
+    private static final String[] FAMILY_NAMES;
+    private static final Set<Material>[] FAMILY_LEAVES;
+    private static final long[][] FAMILY_LEAF_BITS;
+    
+    static {
+        Map<String, Integer> familyIds = new HashMap<>();
+        List<String> familyNames = new ArrayList<>();
+        
+        for (Material material : MATERIALS) {
+            int ordinal = material.ordinal();
+            String name = material.name();
+            
+            int flags = 0;
+            if (LOG_MATERIALS.contains(material)) flags |= FLAG_LOG;
+            if (LEAF_MATERIALS.contains(material)) flags |= FLAG_LEAF;
+            if (AXE_MATERIALS.contains(material)) flags |= FLAG_AXE;
+            if (name.contains("LOG") || name.contains("STEM") ||
+                name.contains("WOOD") || name.contains("HYPHAE")) flags |= FLAG_WOOD;
+            if (matchesStructure(material)) flags |= FLAG_STRUCTURE;
+            FLAGS[ordinal] = (byte) flags;
+            
+            // e.g., STRIPPED_OAK_LOG -> OAK, OAK_WOOD -> OAK
+            String woodType = name.replace("STRIPPED_", "")
+                                  .replace("_LOG", "")
+                                  .replace("_STEM", "")
+                                  .replace("_WOOD", "")
+                                  .replace("_HYPHAE", "");
+            Integer family = familyIds.get(woodType);
+            if (family == null) {
+                family = familyNames.size();
+                familyIds.put(woodType, family);
+                familyNames.add(woodType);
+            }
+            WOOD_FAMILY[ordinal] = family;
+        }
+        
+        FAMILY_NAMES = familyNames.toArray(new String[0]);
+        @SuppressWarnings("unchecked")
+        Set<Material>[] familyLeaves = new Set[FAMILY_NAMES.length];
+        FAMILY_LEAVES = familyLeaves;
+        FAMILY_LEAF_BITS = new long[FAMILY_NAMES.length][];
+        long[] noLeaves = new long[(MATERIALS.length + 63) >>> 6];
+        Arrays.fill(FAMILY_LEAVES, Set.of());
+        Arrays.fill(FAMILY_LEAF_BITS, noLeaves);
+        
+        for (Map.Entry<Material, Set<Material>> entry : LOG_LEAF_MAP.entrySet()) {
+            int family = WOOD_FAMILY[entry.getKey().ordinal()];
+            long[] bits = new long[noLeaves.length];
+            for (Material leaf : entry.getValue()) {
+                bits[leaf.ordinal() >>> 6] |= 1L << leaf.ordinal();
+            }
+            FAMILY_LEAVES[family] = entry.getValue();
+            FAMILY_LEAF_BITS[family] = bits;
+        }
+    }
+    
+    /**
+     * Check if a material is a typical structure/building block (used to build the table).
+     */
+    private static boolean matchesStructure(Material material) {
+        // Check explicit list
+        if (STRUCTURE_BLOCKS.contains(material)) {
+            return true;
+        }
+        
+        // Check by name patterns
+        String name = material.name();
+        return name.contains("PLANK") ||
+               name.contains("SLAB") ||
+               name.contains("STAIR") ||
+               name.contains("FENCE") ||
+               name.contains("DOOR") ||
+               name.contains("TRAPDOOR") ||
+               name.contains("WOOL") ||
+               name.contains("CARPET") ||
+               name.contains("BED") ||
+               name.contains("GLASS") ||
+               name.contains("SIGN") ||
+               name.contains("BANNER");
+    }
+    
     /**
      * Check if material is a log block.
      */
     public static boolean isLogBlock(Material material) {
-        return LOG_MATERIALS.contains(material);
+        return (FLAGS[material.ordinal()] & FLAG_LOG) != 0;
     }
     
     /**
      * Check if material is a leaf block.
      */
     public static boolean isLeafBlock(Material material) {
-        return LEAF_MATERIALS.contains(material);
+        return (FLAGS[material.ordinal()] & FLAG_LEAF) != 0;
     }
     
     /**
      * Check if material is an axe.
      */
     public static boolean isAxe(Material material) {
-        return AXE_MATERIALS.contains(material);
+        return (FLAGS[material.ordinal()] & FLAG_AXE) != 0;
     }
     
     /**
      * Check if material is any wood-related block (log, wood, stripped).
      */
     public static boolean isWoodBlock(Material material) {
-        String name = material.name();
-        return name.contains("LOG") || name.contains("STEM") || 
-               name.contains("WOOD") || name.contains("HYPHAE");
+        return (FLAGS[material.ordinal()] & FLAG_WOOD) != 0;
+    }
+    
+    /**
+     * Check if a material is a typical structure/building block
+     * (planks, slabs, stairs, fences, doors, glass, beds, signs, ...).
+     */
+    public static boolean isStructureBlock(Material material) {
+        return (FLAGS[material.ordinal()] & FLAG_STRUCTURE) != 0;
     }
     
     /**
@@ -102,34 +241,36 @@ public final class MaterialUtil {
      * e.g., STRIPPED_OAK_LOG -> OAK, OAK_WOOD -> OAK
      */
     public static String getWoodType(Material material) {
-        String name = material.name();
-        return name.replace("STRIPPED_", "")
-                   .replace("_LOG", "")
-                   .replace("_STEM", "")
-                   .replace("_WOOD", "")
-                   .replace("_HYPHAE", "");
+        return FAMILY_NAMES[WOOD_FAMILY[material.ordinal()]];
+    }
+    
+    /**
+     * Get the wood family id of a material.
+     * Materials with the same base wood type (see {@link #getWoodType}) share an id.
+     */
+    public static int getWoodFamily(Material material) {
+        return WOOD_FAMILY[material.ordinal()];
     }
     
     /**
      * Check if two materials are the same wood type.
      */
     public static boolean isSameWoodType(Material mat1, Material mat2) {
-        return getWoodType(mat1).equals(getWoodType(mat2));
+        return WOOD_FAMILY[mat1.ordinal()] == WOOD_FAMILY[mat2.ordinal()];
     }
     
     /**
      * Get valid leaf types for a given log type.
      */
     public static Set<Material> getValidLeaves(Material logType) {
-        // Normalize to base log type
-        String woodType = getWoodType(logType);
-        
-        for (Map.Entry<Material, Set<Material>> entry : LOG_LEAF_MAP.entrySet()) {
-            if (getWoodType(entry.getKey()).equals(woodType)) {
-                return entry.getValue();
-            }
-        }
-        
-        return Set.of();
+        return FAMILY_LEAVES[WOOD_FAMILY[logType.ordinal()]];
+    }
+    
+    /**
+     * Check if a leaf material is valid for a wood family (see {@link #getWoodFamily}).
+     */
+    public static boolean isValidLeaf(int woodFamily, Material leaf) {
+        int ordinal = leaf.ordinal();
+        return (FAMILY_LEAF_BITS[woodFamily][ordinal >>> 6] & (1L << ordinal)) != 0;
     }
 }
@@ -0,0 +1,177 @@
+package com.can61cebi.foliatimber.util;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextComponent;
+import net.kyori.adventure.text.format.Style;
+import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
+import net.kyori.adventure.text.serializer.legacy.LegacyFormat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A message with legacy (&amp;) color codes, parsed once into components.
+ * Placeholders like %logs% become slots; rendering only fills the slots
+ * instead of re-parsing the whole message.
+ */
+public final class MessageTemplate {
+    
+    private static final Pattern SLOT = Pattern.compile("%([A-Za-z0-9_-]+)%");
+    
+    private final String raw;
+    private final String[] literals;      // raw text around the slots (slots.length + 1)
+    private final Component[] parts;      // parsed literals, each with the codes carried into it
+    private final String[] slots;         // placeholder as written, e.g. "%logs%"
+    private final String[] slotCodes;     // legacy codes active at each slot
+    private final Style[] slotStyles;     // the same codes as a style
+    private final Component constant;     // whole message if it has no slots
+    
+    private MessageTemplate(String raw, List<String> literals, List<String> slots, List<String> codesBefore,
+                            List<String> slotCodes) {
+        this.raw = raw;
+        this.literals = literals.toArray(new String[0]);
+        this.slots = slots.toArray(new String[0]);
+        this.slotCodes = slotCodes.toArray(new String[0]);
+        
+        this.parts = new Component[this.literals.length];
+        for (int i = 0; i < parts.length; i++) {
+            parts[i] = MessageUtil.colorize(codesBefore.get(i) + this.literals[i]);
+        }
+        
+        this.slotStyles = new Style[this.slots.length];
+        for (int i = 0; i < slotStyles.length; i++) {
+            slotStyles[i] = toStyle(this.slotCodes[i]);
+        }
+        
+        this.constant = this.slots.length == 0 ? parts[0] : null;
+    }
+    
+    /**
+     * Parse a message into literals and placeholder slots.
+     */
+    public static MessageTemplate parse(String raw) {
+        List<String> literals = new ArrayList<>();
+        List<String> slots = new ArrayList<>();
+        List<String> codesBefore = new ArrayList<>();
+        List<String> slotCodes = new ArrayList<>();
+        
+        String codes = "";
+        int last = 0;
+        Matcher matcher = SLOT.matcher(raw);
+        while (matcher.find()) {
+            String literal = raw.substring(last, matcher.start());
+            literals.add(literal);
+            codesBefore.add(codes);
+            
+            codes = carryCodes(codes, literal);
+            slots.add(matcher.group());
+            slotCodes.add(codes);
+            last = matcher.end();
+        }
+        literals.add(raw.substring(last));
+        codesBefore.add(codes);
+        
+        return new MessageTemplate(raw, literals, slots, codesBefore, slotCodes);
+    }
+    
+    /**
+     * Get the unparsed message.
+     */
+    public String raw() {
+        return raw;
+    }
+    
+    /**
+     * Render the message, filling slots from placeholder/value pairs.
+     * Placeholders without a value are kept as written.
+     *
+     * @param replacements Pairs like "%logs%", "12"
+     */
+    public Component render(String... replacements) {
+        if (constant != null) {
+            return constant;
+        }
+        
+        TextComponent.Builder builder = Component.text();
+        for (int i = 0; i < slots.length; i++) {
+            builder.append(parts[i]);
+            
+            String value = valueOf(slots[i], replacements);
+            if (value.indexOf('&') >= 0) {
+                // Values with their own color codes (e.g. localized reasons) still need parsing
+                builder.append(MessageUtil.colorize(slotCodes[i] + value));
+            } else {
+                builder.append(Component.text(value, slotStyles[i]));
+            }
+        }
+        builder.append(parts[slots.length]);
+        return builder.build();
+    }
+    
+    /**
+     * Fill slots as plain text (for messages embedded in other messages).
+     *
+     * @param replacements Pairs like "%count%", "3"
+     */
+    public String format(String... replacements) {
+        if (slots.length == 0) {
+            return raw;
+        }
+        
+        StringBuilder builder = new StringBuilder(raw.length() + 16);
+        for (int i = 0; i < slots.length; i++) {
+            builder.append(literals[i]).append(valueOf(slots[i], replacements));
+        }
+        return builder.append(literals[slots.length]).toString();
+    }
+    
+    private static String valueOf(String slot, String[] replacements) {
+        for (int i = 0; i < replacements.length - 1; i += 2) {
+            if (replacements[i].equals(slot)) {
+                return replacements[i + 1];
+            }
+        }
+        return slot;
+    }
+    
+    /**
+     * Track which legacy codes are still active after a piece of text
+     * (a color or reset clears formatting, formats stack).
+     */
+    private static String carryCodes(String codes, String text) {
+        StringBuilder active = new StringBuilder(codes);
+        for (int i = 0; i < text.length() - 1; i++) {
+            if (text.charAt(i) != '&') continue;
+            
+            char code = text.charAt(i + 1);
+            LegacyFormat format = LegacyComponentSerializer.parseChar(code);
+            if (format == null) continue;
+            
+            if (format.reset() || format.color() != null) {
+                active.setLength(0);
+            }
+            if (!format.reset()) {
+                active.append('&').append(code);
+            }
+            i++;
+        }
+        return active.toString();
+    }
+    
+    private static Style toStyle(String codes) {
+        Style style = Style.empty();
+        for (int i = 1; i < codes.length(); i += 2) {
+            LegacyFormat format = LegacyComponentSerializer.parseChar(codes.charAt(i));
+            if (format == null) continue;
+            
+            if (format.color() != null) {
+                style = Style.style(format.color());
+            } else if (format.decoration() != null) {
+                style = style.decoration(format.decoration(), true);
+            }
+        }
+        return style;
+    }
+}
@@ -31,6 +31,13 @@ public final class MessageUtil {
         player.sendMessage(colorize(message));
     }
     
+    /**
+     * Send a pre-rendered message to a player.
+     */
+    public static void send(Player player, Component message) {
+        player.sendMessage(message);
+    }
+    
     /**
      * Send a prefixed message to a player.
      */